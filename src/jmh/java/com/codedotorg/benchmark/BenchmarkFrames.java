@@ -0,0 +1,43 @@
+package com.codedotorg.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.imgcodecs.Imgcodecs;
+
+public class BenchmarkFrames {
+
+    /** The checked-in synthetic camera frames (640x480 BGR) */
+    private static final String[] FRAME_RESOURCES = {"/frames/frame-0.png", "/frames/frame-1.png"};
+
+    /**
+     * Loads OpenCV and decodes the checked-in synthetic frames, so every
+     * benchmark runs on the same pixels without a camera.
+     *
+     * @return the decoded frames
+     */
+    public static List<Mat> load() {
+        // Load the OpenCV library locally
+        nu.pattern.OpenCV.loadLocally();
+
+        List<Mat> frames = new ArrayList<>();
+
+        for (String resource : FRAME_RESOURCES) {
+            try (InputStream in = BenchmarkFrames.class.getResourceAsStream(resource)) {
+                if (in == null) {
+                    throw new IllegalStateException("Missing benchmark frame " + resource);
+                }
+                frames.add(Imgcodecs.imdecode(new MatOfByte(in.readAllBytes()), Imgcodecs.IMREAD_COLOR));
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to read benchmark frame " + resource, e);
+            }
+        }
+
+        return frames;
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.codedotorg.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.codedotorg.GameLogic;
+import com.codedotorg.modelmanager.Gesture;
+import com.codedotorg.modelmanager.ModelPredictor;
+import com.codedotorg.modelmanager.ModelProcessor;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameLogicBenchmark {
+
+    /** The labels in the order of labels.txt */
+    private static final String[] LABELS = {"0 thumbsdown", "1 thumbsup", "2 stop", "3 neutral"};
+
+    /** The gestures parsed from LABELS, as predictions carry them */
+    private static final Gesture[] GESTURES = Gesture.fromLabels(List.of(LABELS));
+
+    /** The probabilities the argmax runs over */
+    private float[] scores;
+
+    /** The predictor holding getIndexOfMaxValue */
+    private ModelPredictor predictor;
+
+    /** The game state being searched */
+    private GameLogic logic;
+
+    /** The index of the next label to play */
+    private int next;
+
+    @Setup
+    public void setUp() {
+        // ModelPredictor preallocates OpenCV Mats
+        nu.pattern.OpenCV.loadLocally();
+
+        scores = new float[] {0.05f, 0.1f, 0.8f, 0.05f};
+        predictor = new ModelPredictor(new ModelProcessor(), 1);
+        logic = new GameLogic();
+        next = 0;
+    }
+
+    @Benchmark
+    public int getIndexOfMaxValue() {
+        return predictor.getIndexOfMaxValue(scores);
+    }
+
+    /**
+     * Cycles through every gesture so each branch of the search is measured.
+     */
+    @Benchmark
+    public int binarySearch() {
+        Gesture gesture = GESTURES[next];
+        next = (next + 1) % GESTURES.length;
+
+        if (logic.isGuessCorrect(gesture)) {
+            logic.resetLogic();
+        }
+        return logic.binarySearch(gesture);
+    }
+
+    /**
+     * The same search through the label strings, which are parsed on every call.
+     */
+    @Benchmark
+    public int binarySearchLabel() {
+        String label = LABELS[next];
+        next = (next + 1) % LABELS.length;
+
+        if (logic.isGuessCorrect(label)) {
+            logic.resetLogic();
+        }
+        return logic.binarySearch(label);
+    }
+
+}
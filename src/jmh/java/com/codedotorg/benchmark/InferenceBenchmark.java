@@ -0,0 +1,114 @@
+package com.codedotorg.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tensorflow.Tensor;
+
+import com.codedotorg.modelmanager.ModelPredictor;
+import com.codedotorg.modelmanager.ModelProcessor;
+import com.codedotorg.modelmanager.NativeResources;
+import com.codedotorg.modelmanager.Prediction;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InferenceBenchmark {
+
+    /** The number of frames in the batch benchmarks */
+    private static final int BATCH_SIZE = 8;
+
+    /** The processor holding the model bundled in com/codedotorg/model */
+    private ModelProcessor processor;
+
+    /** The predictor running the model */
+    private ModelPredictor predictor;
+
+    /** The frame being classified */
+    private Mat frame;
+
+    /** The frames classified by the batch benchmarks */
+    private List<Mat> batch;
+
+    /** The prepared input of the original float[] path */
+    private float[] input;
+
+    @Setup
+    public void setUp() {
+        List<Mat> frames = BenchmarkFrames.load();
+        frame = frames.get(0);
+
+        batch = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(frames.get(i % frames.size()));
+        }
+
+        processor = new ModelProcessor();
+        processor.loadModel();
+        processor.loadLabels();
+        predictor = new ModelPredictor(processor, BATCH_SIZE);
+        input = processor.prepareFrameForModel(frame);
+    }
+
+    /**
+     * The original path: wrap the prepared float[] in a new Tensor and run the model.
+     */
+    @Benchmark
+    public float[] floatArrayToTensorAndPredict() {
+        Tensor<Float> tensor = processor.floatArrayToTensor(input);
+
+        try {
+            return predictor.predict(tensor);
+        } finally {
+            // The tensor is tracked, so it must be closed through NativeResources to keep the live count right
+            NativeResources.close(tensor);
+        }
+    }
+
+    /**
+     * The full per-frame path through the reused buffers.
+     */
+    @Benchmark
+    public float[] processAndPredict() {
+        return predictor.processAndPredict(frame);
+    }
+
+    /**
+     * BATCH_SIZE frames classified with one session run each (time per frame).
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public Prediction singleFrameCalls() {
+        Prediction last = null;
+        for (Mat batchFrame : batch) {
+            last = predictor.processFrameAndGetClassNameWithConfidence(batchFrame);
+        }
+        return last;
+    }
+
+    /**
+     * BATCH_SIZE frames classified in a single session run (time per frame).
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<Prediction> predictBatch() {
+        return predictor.predictBatch(batch);
+    }
+
+}
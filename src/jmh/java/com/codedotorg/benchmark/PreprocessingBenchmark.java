@@ -0,0 +1,70 @@
+package com.codedotorg.benchmark;
+
+import java.nio.FloatBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.codedotorg.modelmanager.InferenceBuffers;
+import com.codedotorg.modelmanager.ModelProcessor;
+import com.codedotorg.modelmanager.PreprocessingMode;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PreprocessingBenchmark {
+
+    /** How the reused-buffer path normalizes the frame */
+    @Param({"NATIVE", "JAVA"})
+    private PreprocessingMode mode;
+
+    /** The processor holding the preprocessing code */
+    private ModelProcessor processor;
+
+    /** The buffers reused across invocations */
+    private InferenceBuffers buffers;
+
+    /** The frame being prepared */
+    private Mat frame;
+
+    @Setup
+    public void setUp() {
+        List<Mat> frames = BenchmarkFrames.load();
+        frame = frames.get(0);
+        processor = new ModelProcessor();
+        processor.setPreprocessingMode(mode);
+        buffers = new InferenceBuffers();
+    }
+
+    /**
+     * The original path: new resized Mat, byte[] and float[] for every frame.
+     */
+    @Benchmark
+    public float[] prepareFrameForModel() {
+        return processor.prepareFrameForModel(frame);
+    }
+
+    /**
+     * The reused-buffer path that writes into a direct FloatBuffer.
+     */
+    @Benchmark
+    public FloatBuffer prepareFrameIntoBuffers() {
+        return processor.prepareFrameForModel(frame, buffers);
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.codedotorg.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.codedotorg.modelmanager.PreviewMode;
+import com.codedotorg.modelmanager.PreviewRenderer;
+
+import javafx.scene.image.Image;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dprism.order=sw"})
+public class PreviewBenchmark {
+
+    /** The renderer using the reused PixelBuffers */
+    private PreviewRenderer renderer;
+
+    /** The frame being converted */
+    private Mat frame;
+
+    @Setup
+    public void setUp() {
+        frame = BenchmarkFrames.load().get(0);
+        renderer = new PreviewRenderer(PreviewMode.PIXEL_BUFFER);
+    }
+
+    /**
+     * The PNG encode/decode fallback.
+     */
+    @Benchmark
+    public Image matToImage() {
+        return renderer.matToImage(frame);
+    }
+
+    /**
+     * The capture thread's side of the zero-copy path: converting into the reused
+     * back buffer and swapping it into the exchange. Nothing picks the frames up,
+     * so every call after the first also counts as a skipped preview frame.
+     */
+    @Benchmark
+    public void publishIntoPixelBuffer() {
+        renderer.publish(frame);
+    }
+
+}
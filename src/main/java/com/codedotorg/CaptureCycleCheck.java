@@ -0,0 +1,75 @@
+package com.codedotorg;
+
+import com.codedotorg.modelmanager.CameraController;
+import com.codedotorg.modelmanager.FrameSources;
+import com.codedotorg.modelmanager.ModelManager;
+import com.codedotorg.modelmanager.NativeResource;
+import com.codedotorg.modelmanager.NativeResources;
+
+final class CaptureCycleCheck {
+
+    /**
+     * CaptureCycleCheck only has static members.
+     */
+    private CaptureCycleCheck() {
+    }
+
+    /**
+     * Starts and stops a headless CameraController capture the given number of times
+     * and checks that every stop releases what its start allocated. The first cycle
+     * warms up the buffers kept between captures (motion gate, model workers) and sets
+     * the baseline; after every later stop the live Mats and Tensors must be back at it,
+     * and once the controller is closed they must not exceed the counts before the first start.
+     *
+     * @param model the loaded model to classify the frames with
+     * @param sourceSpec the source specification the capture reads from (see FrameSources.create)
+     * @param cycles the number of times to start and stop the capture
+     * @param cycleMillis how long each capture runs
+     * @return true if the live counts returned to the baseline every time, false otherwise
+     * @throws InterruptedException if the thread is interrupted while a capture runs
+     */
+    static boolean run(ModelManager model, String sourceSpec, int cycles, long cycleMillis) throws InterruptedException {
+        long initialMats = NativeResources.getLive(NativeResource.MAT);
+        long initialTensors = NativeResources.getLive(NativeResource.TENSOR);
+        long baselineMats = -1;
+        long baselineTensors = -1;
+        boolean passed = true;
+
+        CameraController controller = new CameraController();
+        controller.setFrameSource(FrameSources.create(sourceSpec));
+        controller.setFrameRecorder(null);
+
+        for (int cycle = 1; cycle <= cycles; cycle++) {
+            controller.captureCamera(null, model);
+            Thread.sleep(cycleMillis);
+            controller.stopCapture();
+            controller.awaitStopped();
+
+            long liveMats = NativeResources.getLive(NativeResource.MAT);
+            long liveTensors = NativeResources.getLive(NativeResource.TENSOR);
+
+            // The first stop sets the baseline, once the buffers kept between captures exist
+            if (baselineMats < 0) {
+                baselineMats = liveMats;
+                baselineTensors = liveTensors;
+            }
+            else if (liveMats != baselineMats || liveTensors != baselineTensors) {
+                passed = false;
+                System.out.printf("Capture cycle %d: live Mats=%d, live Tensors=%d (baseline %d, %d)%n",
+                    cycle, liveMats, liveTensors, baselineMats, baselineTensors);
+            }
+        }
+
+        controller.close();
+
+        long liveMats = NativeResources.getLive(NativeResource.MAT);
+        long liveTensors = NativeResources.getLive(NativeResource.TENSOR);
+        passed &= liveMats <= initialMats && liveTensors <= initialTensors;
+
+        System.out.printf("Capture cycles %s: %d cycles of %dms, live Mats %d -> %d (baseline %d), live Tensors %d -> %d (baseline %d)%n",
+            passed ? "passed" : "FAILED", cycles, cycleMillis, initialMats, liveMats, baselineMats,
+            initialTensors, liveTensors, baselineTensors);
+        return passed;
+    }
+
+}
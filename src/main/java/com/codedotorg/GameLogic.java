@@ -1,6 +1,14 @@
 package com.codedotorg;
 
+import com.codedotorg.modelmanager.Gesture;
+
 public class GameLogic {
+
+    /** The lowest number the player can think of */
+    public static final int LOWEST = 1;
+
+    /** The highest number the player can think of */
+    public static final int HIGHEST = 100;
     
     /** The left boundary for the binary search (lowest number in the range) */
     private int left;
@@ -12,12 +20,12 @@ public class GameLogic {
     private int guess;
 
     /**
-     * Initializes the game logic with a range of 0 to 100 and
+     * Initializes the game logic with a range of 1 to 100 and
      * sets the initial guess to the midpoint of the range.
      */
     public GameLogic() {
-        left = 0;
-        right = 100;
+        left = LOWEST;
+        right = HIGHEST;
         guess = (left + right) / 2;
     }
 
@@ -28,25 +36,26 @@ public class GameLogic {
      * @return an integer representing the next guess to make (-1 if the user's response is invalid)
      */
     public int binarySearch(String predictedClass) {
-        // Get the predicted class without the leading number
-        String userResponse = predictedClass.substring(predictedClass.indexOf(" ") + 1);
+        return binarySearch(Gesture.fromLabel(predictedClass));
+    }
 
-        if (!isGuessCorrect(predictedClass)) {
-            if (userResponse.equals("thumbsup")) {
+    /**
+     * Performs a binary search based on the user's gesture in response to a guess.
+     * 
+     * @param gesture the gesture of the predicted class
+     * @return an integer representing the next guess to make (-1 if the user's response is invalid)
+     */
+    public int binarySearch(Gesture gesture) {
+        switch (gesture) {
+            case THUMBS_UP:
                 return guessHigher();
-            }
-            else if (userResponse.equals("thumbsdown")) {
+            case THUMBS_DOWN:
                 return guessLower();
-            }
-            else if (userResponse.equals("neutral")) {
+            case NEUTRAL:
+            case STOP:
                 return guess;
-            }
-            else {
+            default:
                 return -1;
-            }
-        }
-        else {
-            return guess;
         }
     }
 
@@ -57,26 +66,33 @@ public class GameLogic {
      * @return true if the user's guess is "stop", false otherwise
      */
     public boolean isGuessCorrect(String predictedClass) {
-        // Get the predicted class without the leading number
-        String userResponse = predictedClass.substring(predictedClass.indexOf(" ") + 1);
+        return isGuessCorrect(Gesture.fromLabel(predictedClass));
+    }
 
-        if (userResponse.equals("stop")) {
-            return true;
-        }
-        
-        return false;
+    /**
+     * Checks if the user's gesture says the guess is correct.
+     * 
+     * @param gesture the gesture of the predicted class
+     * @return true if the gesture is STOP, false otherwise
+     */
+    public boolean isGuessCorrect(Gesture gesture) {
+        return gesture == Gesture.STOP;
     }
 
     /**
      * Returns the next guess by assuming the number is higher than the current guess.
-     * Updates the left boundary of the search space to be the current guess.
+     * Updates the left boundary of the search space to be just above the current guess,
+     * so every number up to HIGHEST can be reached.
      * The next guess is the number in the middle of the left and right boundaries.
      * 
      * @return the next guess
      */
     public int guessHigher() {
-        // Set the left boundary to the current guess
-        left = guess;
+        // Set the left boundary to just above the current guess
+        left = guess + 1;
+
+        // Start over if the answers contradict each other (such as a misread gesture)
+        restartIfEmpty();
 
         // Set guess to the value in the middle of the left and right boundaries
         guess = (left + right) / 2;
@@ -86,14 +102,17 @@ public class GameLogic {
     }
 
     /**
-     * Calculates the next guess by setting the current guess as the upper bound and
-     * gets the middle of the lower and upper bounds as the new guess.
+     * Calculates the next guess by setting the number just below the current guess as
+     * the upper bound and gets the middle of the lower and upper bounds as the new guess.
      *
      * @return the new guess
      */
     public int guessLower() {
-        // Set the right boundary to the current guess
-        right = guess;
+        // Set the right boundary to just below the current guess
+        right = guess - 1;
+
+        // Start over if the answers contradict each other (such as a misread gesture)
+        restartIfEmpty();
 
         // Set guess to the value in the middle of the left and right boundaries
         guess = (left + right) / 2;
@@ -112,13 +131,25 @@ public class GameLogic {
     }
 
     /**
-     * Resets the game by setting the left boundary to 0, the right boundary to 100,
+     * Resets the game by setting the left boundary to 1, the right boundary to 100,
      * and the guess to the midpoint of the boundaries.
      */
     public void resetLogic() {
-        left = 0;
-        right = 100;
+        left = LOWEST;
+        right = HIGHEST;
         guess = (left + right) / 2;
     }
 
+    /**
+     * Widens the search back to the full range when no number is left between the
+     * boundaries. That only happens when an earlier answer was wrong, so the number
+     * cannot be found without searching again.
+     */
+    private void restartIfEmpty() {
+        if (left > right) {
+            left = LOWEST;
+            right = HIGHEST;
+        }
+    }
+
 }
@@ -0,0 +1,269 @@
+package com.codedotorg;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.opencv.core.Mat;
+
+import com.codedotorg.modelmanager.FrameReplayer;
+import com.codedotorg.modelmanager.FrameSource;
+import com.codedotorg.modelmanager.ModelManager;
+import com.codedotorg.modelmanager.NativeResources;
+import com.codedotorg.modelmanager.Prediction;
+
+public class GameServer {
+
+    /** The model shared by every session */
+    private final ModelManager model;
+
+    /** Runs the inference and game turn of submitted frames */
+    private final ExecutorService scheduler;
+
+    /** The open sessions by id */
+    private final Map<Integer, GameSession> sessions;
+
+    /** The id given to the next session */
+    private final AtomicInteger nextId;
+
+    /**
+     * Constructs a new GameServer that runs every session on the given model,
+     * with one scheduler thread per inference worker.
+     *
+     * @param model the loaded model to share between sessions
+     */
+    public GameServer(ModelManager model) {
+        this.model = model;
+
+        // Size the scheduler to the model's workers so frames never wait for a worker
+        AtomicInteger threadNumber = new AtomicInteger();
+        scheduler = Executors.newFixedThreadPool(model.getWorkerCount(), runnable -> {
+            Thread thread = new Thread(runnable, "game-server-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        sessions = new ConcurrentHashMap<>();
+        nextId = new AtomicInteger();
+    }
+
+    /**
+     * Opens a new session with its own game state, whose frames are submitted from outside.
+     *
+     * @return the new session
+     */
+    public GameSession openSession() {
+        return openSession(null);
+    }
+
+    /**
+     * Opens a new session with its own game state and gesture smoothing,
+     * reading its frames from the given source when play() runs.
+     *
+     * @param frameSource where the session's frames come from, or null if they are submitted from outside
+     * @return the new session
+     */
+    public GameSession openSession(FrameSource frameSource) {
+        GameSession session = new GameSession(nextId.incrementAndGet(),
+            model.getModelProcessor().getLabels(), frameSource);
+        sessions.put(session.getId(), session);
+        return session;
+    }
+
+    /**
+     * Closes the given session. Frames already submitted still complete.
+     *
+     * @param session the session to close
+     */
+    public void closeSession(GameSession session) {
+        sessions.remove(session.getId());
+    }
+
+    /**
+     * Returns the session with the given id.
+     *
+     * @param id the id of the session
+     * @return the session, or null if it is not open
+     */
+    public GameSession getSession(int id) {
+        return sessions.get(id);
+    }
+
+    /**
+     * Returns the open sessions.
+     *
+     * @return a snapshot of the open sessions
+     */
+    public List<GameSession> getSessions() {
+        return new ArrayList<>(sessions.values());
+    }
+
+    /**
+     * Submits a frame captured now from a session's player.
+     *
+     * @param session the session the frame belongs to
+     * @param frame the frame from the session's player
+     * @return a future with the computer's most recent guess, or null if the frame was skipped
+     * @see #submitFrame(GameSession, Mat, long)
+     */
+    public CompletableFuture<Integer> submitFrame(GameSession session, Mat frame) {
+        return submitFrame(session, frame, System.nanoTime());
+    }
+
+    /**
+     * Submits a frame from a session's player. The frame is classified by the shared
+     * model and the prediction is fed to the session's GestureSmoother, which plays a
+     * turn only once a gesture has been held long enough. If the session's previous
+     * frame is still being processed the frame is skipped, so a slow model never
+     * builds up a queue of stale frames. The caller must not modify the frame until
+     * the returned future completes.
+     *
+     * @param session the session the frame belongs to
+     * @param frame the frame from the session's player
+     * @param captureNanos when the frame was captured, in nanoseconds on a steady clock
+     * @return a future with the computer's most recent guess, or null if the frame was skipped
+     * @throws RejectedExecutionException if the server has been shut down
+     */
+    public CompletableFuture<Integer> submitFrame(GameSession session, Mat frame, long captureNanos) {
+        if (!session.tryBeginFrame()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        long submitNanos = System.nanoTime();
+
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    Prediction prediction = model.getPrediction(frame);
+                    return session.updateGestures(prediction, captureNanos);
+                } finally {
+                    session.endFrame(submitNanos);
+                }
+            }, scheduler);
+        } catch (RejectedExecutionException e) {
+            // The frame never ran, so free the session again instead of skipping its frames forever
+            session.rejectFrame();
+            throw e;
+        }
+    }
+
+    /**
+     * Plays every open session that has a frame source, each on its own thread,
+     * until every session has submitted the given number of frames or its source
+     * has run out. The sessions share the model's workers like players sharing one
+     * kiosk server.
+     *
+     * @param framesPerSession the number of frames each session submits, or -1 until its source runs out
+     * @param fps the target frames per second of each session, or 0 to run as fast as possible
+     * @throws InterruptedException if the thread is interrupted while waiting for the sessions
+     */
+    public void play(long framesPerSession, double fps) throws InterruptedException {
+        List<Thread> players = new ArrayList<>();
+
+        for (GameSession session : getSessions()) {
+            if (session.getFrameSource() == null) {
+                continue;
+            }
+
+            Thread thread = new Thread(() -> feedSession(session, framesPerSession, fps), "game-session-" + session.getId());
+            players.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : players) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Reads frames from a session's source and submits them one at a time,
+     * pacing the reads when a target fps is set.
+     *
+     * @param session the session to play
+     * @param framesPerSession the number of frames to submit, or -1 until the source runs out
+     * @param fps the target frames per second, or 0 to run as fast as possible
+     */
+    private void feedSession(GameSession session, long framesPerSession, double fps) {
+        FrameSource source = session.getFrameSource();
+
+        if (!source.open()) {
+            System.out.println("Error! " + source.getName() + " can't be opened for session " + session.getId());
+            return;
+        }
+
+        Mat frame = NativeResources.newMat();
+        long intervalNanos = fps > 0 ? (long) (1e9 / fps) : 0;
+        long nextFrameNanos = System.nanoTime();
+
+        try {
+            for (long i = 0; framesPerSession < 0 || i < framesPerSession; i++) {
+                // Wait for the next frame's slot when running at a fixed pace
+                if (intervalNanos > 0) {
+                    long waitNanos = nextFrameNanos - System.nanoTime();
+                    if (waitNanos > 0) {
+                        Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+                    }
+                    nextFrameNanos += intervalNanos;
+                }
+
+                if (!source.read(frame)) {
+                    break;
+                }
+
+                // Recordings keep their capture times, so gestures are held as long as when they were recorded
+                long captureNanos = source instanceof FrameReplayer
+                    ? ((FrameReplayer) source).getRecordedCaptureNanos() : System.nanoTime();
+
+                try {
+                    // Wait for the turn, since the next read overwrites the frame
+                    submitFrame(session, frame, captureNanos).join();
+                } catch (RejectedExecutionException e) {
+                    // The server was shut down while the session was playing
+                    break;
+                } catch (CompletionException e) {
+                    if (!(e.getCause() instanceof RejectedExecutionException)) {
+                        throw e;
+                    }
+
+                    // Every worker stayed busy with other sessions: drop the frame like the camera pipeline does
+                    session.recordSkippedFrame();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            NativeResources.release(frame);
+            source.close();
+        }
+    }
+
+    /**
+     * Prints the stats of every open session to the console.
+     */
+    public void printStats() {
+        for (GameSession session : getSessions()) {
+            System.out.println(session);
+        }
+    }
+
+    /**
+     * Stops accepting frames and waits for the submitted frames to finish.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(timeout, unit);
+    }
+
+}
@@ -0,0 +1,288 @@
+package com.codedotorg;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.codedotorg.modelmanager.FrameSource;
+import com.codedotorg.modelmanager.Gesture;
+import com.codedotorg.modelmanager.GestureSmoother;
+import com.codedotorg.modelmanager.LatencyHistogram;
+import com.codedotorg.modelmanager.Prediction;
+
+public class GameSession {
+
+    /** The largest number of rounds tracked individually in the rounds-to-win counts */
+    public static final int MAX_TRACKED_ROUNDS = 32;
+
+    /** The id of the session, unique within its server */
+    private final int id;
+
+    /** The game state of this session */
+    private final GameLogic logic;
+
+    /** Smooths this session's predictions and commits gestures that are held steadily */
+    private final GestureSmoother gestureSmoother;
+
+    /** Where this session's frames come from, or null if frames are submitted from outside */
+    private final FrameSource frameSource;
+
+    /** The latency from submitting a frame until its turn has been played */
+    private final LatencyHistogram latency;
+
+    /** Whether a frame of this session is currently being processed */
+    private final AtomicBoolean busy;
+
+    /** The number of games won, indexed by rounds needed (the last entry counts longer games) */
+    private final long[] roundsToWinCounts;
+
+    /** The number of rounds played in the current game */
+    private int rounds;
+
+    /** The number of frames classified in this session */
+    private long frames;
+
+    /** The number of turns played in this session */
+    private long turns;
+
+    /** The number of frames skipped because the previous frame was still being processed or no worker was free */
+    private long skippedFrames;
+
+    /** The number of games the computer has won in this session */
+    private long gamesWon;
+
+    /** The computer's most recent guess */
+    private int lastGuess;
+
+    /**
+     * Constructs a new GameSession with its own GameLogic and GestureSmoother.
+     *
+     * @param id the id of the session
+     * @param labels the class labels of the model, in the order of its probabilities
+     * @param frameSource where the session's frames come from, or null if they are submitted from outside
+     */
+    public GameSession(int id, List<String> labels, FrameSource frameSource) {
+        this.id = id;
+        this.frameSource = frameSource;
+        logic = new GameLogic();
+
+        // Only gestures held steadily are played as turns, the same way the kiosk commits them
+        gestureSmoother = new GestureSmoother(labels);
+        gestureSmoother.setListener(this::playTurn);
+
+        latency = new LatencyHistogram();
+        busy = new AtomicBoolean(false);
+        roundsToWinCounts = new long[MAX_TRACKED_ROUNDS + 1];
+        rounds = 0;
+        lastGuess = logic.guessCorrect();
+    }
+
+    /**
+     * Feeds the prediction of one frame to the session's GestureSmoother. A turn
+     * is played only when the smoother commits a gesture, so a continuous stream
+     * of frames moves the game once per gesture rather than once per frame.
+     *
+     * @param prediction the prediction made from the player's frame
+     * @param captureNanos when the frame was captured, in nanoseconds on a steady clock
+     * @return the computer's most recent guess after this frame
+     */
+    public int updateGestures(Prediction prediction, long captureNanos) {
+        synchronized (this) {
+            frames++;
+        }
+
+        // The smoother calls playTurn when the gesture has been held long enough
+        gestureSmoother.update(prediction, captureNanos);
+        return getLastGuess();
+    }
+
+    /**
+     * Plays one turn of the game with a committed gesture, the same way the
+     * GuessingGame does with each gesture committed by its GestureSmoother.
+     * Every committed gesture is a turn, but only thumbs up, thumbs down and
+     * stop count as rounds of the game. When the player shows "stop" the win
+     * is recorded and a new game starts.
+     *
+     * @param prediction the committed prediction
+     * @return the computer's guess after this turn (-1 if the user's response is invalid)
+     */
+    public synchronized int playTurn(Prediction prediction) {
+        Gesture gesture = prediction.getGesture();
+
+        // Get the result of the computer's guess
+        int result = logic.binarySearch(gesture);
+        turns++;
+
+        // Only an answer to the guess is a round; a neutral or unknown gesture leaves the guess standing
+        if (result >= 0 && gesture != Gesture.NEUTRAL) {
+            rounds++;
+        }
+
+        if (logic.isGuessCorrect(gesture)) {
+            // Record how many rounds the computer needed and start a new game
+            roundsToWinCounts[Math.min(rounds, MAX_TRACKED_ROUNDS)]++;
+            gamesWon++;
+            rounds = 0;
+            logic.resetLogic();
+
+            // Start the next game with a fresh average, as the kiosk does
+            gestureSmoother.reset();
+        }
+
+        if (result >= 0) {
+            lastGuess = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Marks the session as processing a frame.
+     *
+     * @return true if the session was idle, false if a frame is already being processed
+     */
+    boolean tryBeginFrame() {
+        if (busy.compareAndSet(false, true)) {
+            return true;
+        }
+
+        recordSkippedFrame();
+        return false;
+    }
+
+    /**
+     * Counts a frame that was not classified, because the previous frame was
+     * still being processed or no worker was free.
+     */
+    synchronized void recordSkippedFrame() {
+        skippedFrames++;
+    }
+
+    /**
+     * Marks the session as idle again after a frame that was never run,
+     * without recording a latency, and counts the frame as skipped.
+     */
+    void rejectFrame() {
+        recordSkippedFrame();
+        busy.set(false);
+    }
+
+    /**
+     * Marks the session as idle again and records the frame's latency.
+     *
+     * @param submitNanos the System.nanoTime() at which the frame was submitted
+     */
+    void endFrame(long submitNanos) {
+        latency.recordSince(submitNanos);
+        busy.set(false);
+    }
+
+    /**
+     * Returns the id of the session.
+     *
+     * @return the session id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Returns where the session's frames come from.
+     *
+     * @return the frame source, or null if frames are submitted from outside
+     */
+    public FrameSource getFrameSource() {
+        return frameSource;
+    }
+
+    /**
+     * Returns the number of frames classified in this session.
+     *
+     * @return the number of frames
+     */
+    public synchronized long getFrames() {
+        return frames;
+    }
+
+    /**
+     * Returns the latency from submitting a frame until its turn has been played.
+     *
+     * @return the latency histogram of the session
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Returns the computer's most recent valid guess.
+     *
+     * @return the last guess
+     */
+    public synchronized int getLastGuess() {
+        return lastGuess;
+    }
+
+    /**
+     * Returns the number of turns played in this session.
+     *
+     * @return the number of turns
+     */
+    public synchronized long getTurns() {
+        return turns;
+    }
+
+    /**
+     * Returns the number of frames skipped because the previous one was still being processed.
+     *
+     * @return the number of skipped frames
+     */
+    public synchronized long getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    /**
+     * Returns the number of games the computer has won in this session.
+     *
+     * @return the number of games won
+     */
+    public synchronized long getGamesWon() {
+        return gamesWon;
+    }
+
+    /**
+     * Returns how many games were won in each number of rounds. The entry at
+     * index MAX_TRACKED_ROUNDS counts every game that took at least that many rounds.
+     *
+     * @return a copy of the rounds-to-win counts
+     */
+    public synchronized long[] getRoundsToWinCounts() {
+        return roundsToWinCounts.clone();
+    }
+
+    /**
+     * Returns the average number of rounds the computer needed to win.
+     *
+     * @return the average rounds to win, or 0 if no game was won
+     */
+    public synchronized double getAverageRoundsToWin() {
+        if (gamesWon == 0) {
+            return 0;
+        }
+
+        long totalRounds = 0;
+        for (int i = 0; i < roundsToWinCounts.length; i++) {
+            totalRounds += i * roundsToWinCounts[i];
+        }
+        return (double) totalRounds / gamesWon;
+    }
+
+    /**
+     * Returns a string representation of the session's stats.
+     *
+     * @return a string containing the frames, turns, wins, rounds to win and latency
+     */
+    public String toString() {
+        return String.format("Session %d: frames=%d, turns=%d, skipped=%d, gamesWon=%d, avgRoundsToWin=%.2f, latency[%s]",
+            id, getFrames(), getTurns(), getSkippedFrames(), getGamesWon(), getAverageRoundsToWin(), latency);
+    }
+
+}
@@ -0,0 +1,294 @@
+package com.codedotorg;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import com.codedotorg.modelmanager.Gesture;
+
+public class GameSimulator {
+
+    /** The gestures a player can show, which a misread gesture is drawn from */
+    private static final Gesture[] PLAYER_GESTURES = {Gesture.THUMBS_DOWN, Gesture.THUMBS_UP, Gesture.STOP, Gesture.NEUTRAL};
+
+    /** The number of rounds listed individually in the report; longer games are summed */
+    private static final int LISTED_ROUNDS = 20;
+
+    /** The number of games played when none is given on the command line */
+    private static final long DEFAULT_GAMES = 1_000_000;
+
+    /** The number of rounds after which a game counts as non-terminating by default */
+    private static final int DEFAULT_MAX_ROUNDS = 200;
+
+    /** The number of games to play */
+    private final long games;
+
+    /** The number of threads playing games */
+    private final int threads;
+
+    /** The number of rounds after which a game counts as non-terminating */
+    private final int maxRounds;
+
+    /** The probability that a committed gesture is misread as one of the other gestures */
+    private final double errorRate;
+
+    /** The seed of the players, so runs are reproducible */
+    private final long seed;
+
+    /**
+     * The results of the games played by one thread, merged once every thread is done.
+     */
+    private static final class Tally {
+
+        /** The number of games won after each number of rounds (index 0 is unused) */
+        private final long[] roundsToWin;
+
+        /** The number of games that did not end within the maximum number of rounds */
+        private long nonTerminating;
+
+        /** The number of games that ended on a number the player was not thinking of */
+        private long wrongNumbers;
+
+        /**
+         * Constructs an empty Tally.
+         *
+         * @param maxRounds the number of rounds after which a game counts as non-terminating
+         */
+        private Tally(int maxRounds) {
+            roundsToWin = new long[maxRounds + 1];
+        }
+
+        /**
+         * Adds another thread's results to this one.
+         *
+         * @param other the results to add
+         */
+        private void add(Tally other) {
+            for (int i = 0; i < roundsToWin.length; i++) {
+                roundsToWin[i] += other.roundsToWin[i];
+            }
+            nonTerminating += other.nonTerminating;
+            wrongNumbers += other.wrongNumbers;
+        }
+    }
+
+    /**
+     * Constructs a new GameSimulator.
+     *
+     * @param games the number of games to play
+     * @param threads the number of threads playing games
+     * @param maxRounds the number of rounds after which a game counts as non-terminating
+     * @param errorRate the probability that a gesture is misread as one of the other gestures
+     * @param seed the seed of the players
+     * @throws IllegalArgumentException if there is no game, thread or round to play, or the error rate is not a probability
+     */
+    public GameSimulator(long games, int threads, int maxRounds, double errorRate, long seed) {
+        // The report divides by the number of games, so an empty run has nothing to report
+        if (games < 1) {
+            throw new IllegalArgumentException("games must be at least 1, got " + games);
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1, got " + threads);
+        }
+        if (maxRounds < 1) {
+            throw new IllegalArgumentException("maxRounds must be at least 1, got " + maxRounds);
+        }
+        if (!(errorRate >= 0 && errorRate <= 1)) {
+            throw new IllegalArgumentException("errorRate must be between 0 and 1, got " + errorRate);
+        }
+
+        this.games = games;
+        this.threads = threads;
+        this.maxRounds = maxRounds;
+        this.errorRate = errorRate;
+        this.seed = seed;
+    }
+
+    /**
+     * Plays games between GameLogic and virtual players whose gestures are misread at
+     * the given rates, and prints the rounds-to-win distribution, the non-terminating
+     * games and the throughput for each rate.
+     * Unlike GameSession, the simulator does not classify frames or run a GestureSmoother:
+     * each round is one gesture as the smoother commits it, and the error rate stands for
+     * the committed gestures that are wrong, not for the noise of single frames.
+     * Per-frame noise is smoothed away before it reaches GameLogic, so it is not modelled.
+     * Options: --games=N (default 1000000), --threads=N (default all cores),
+     * --error-rates=R1,R2,... (default 0,0.01,0.05,0.1), --max-rounds=N (default 200), --seed=N.
+     *
+     * @param args the command line options
+     * @throws InterruptedException if interrupted while waiting for the games
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = HeadlessRunner.parseOptions(args);
+
+        long games = Long.parseLong(options.getOrDefault("games", String.valueOf(DEFAULT_GAMES)));
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int maxRounds = Integer.parseInt(options.getOrDefault("max-rounds", String.valueOf(DEFAULT_MAX_ROUNDS)));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+
+        for (String rate : options.getOrDefault("error-rates", "0,0.01,0.05,0.1").split(",")) {
+            new GameSimulator(games, threads, maxRounds, Double.parseDouble(rate), seed).run();
+            System.out.println();
+        }
+    }
+
+    /**
+     * Plays the games on all threads and prints the results.
+     *
+     * @throws InterruptedException if interrupted while waiting for the games
+     */
+    public void run() throws InterruptedException {
+        List<Thread> simulatorThreads = new ArrayList<>();
+        Tally[] tallies = new Tally[threads];
+        long start = System.nanoTime();
+
+        for (int i = 0; i < threads; i++) {
+            // Split the games evenly, giving the remainder to the first threads
+            long threadGames = games / threads + (i < games % threads ? 1 : 0);
+            SplittableRandom random = new SplittableRandom(seed + i);
+            int index = i;
+
+            Thread thread = new Thread(() -> tallies[index] = play(threadGames, random), "game-simulator-" + i);
+            simulatorThreads.add(thread);
+            thread.start();
+        }
+
+        Tally total = new Tally(maxRounds);
+        for (int i = 0; i < threads; i++) {
+            simulatorThreads.get(i).join();
+            total.add(tallies[i]);
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        print(total, seconds);
+    }
+
+    /**
+     * Plays the given number of games on the calling thread.
+     *
+     * @param count the number of games to play
+     * @param random the source of secret numbers and misread gestures
+     * @return the results of the games
+     */
+    private Tally play(long count, SplittableRandom random) {
+        Tally tally = new Tally(maxRounds);
+        GameLogic logic = new GameLogic();
+
+        for (long game = 0; game < count; game++) {
+            logic.resetLogic();
+            int secret = random.nextInt(GameLogic.LOWEST, GameLogic.HIGHEST + 1);
+            boolean ended = false;
+
+            for (int round = 1; round <= maxRounds && !ended; round++) {
+                int guess = logic.guessCorrect();
+                Gesture gesture = showGesture(secret, guess, random);
+
+                logic.binarySearch(gesture);
+
+                if (logic.isGuessCorrect(gesture)) {
+                    tally.roundsToWin[round]++;
+                    if (guess != secret) {
+                        tally.wrongNumbers++;
+                    }
+                    ended = true;
+                }
+            }
+
+            if (!ended) {
+                tally.nonTerminating++;
+            }
+        }
+
+        return tally;
+    }
+
+    /**
+     * Returns the gesture committed for a virtual player's answer to a guess, as the
+     * GestureSmoother would commit it after the player has held the gesture.
+     *
+     * @param secret the number the player is thinking of
+     * @param guess the computer's guess
+     * @param random the source of misread gestures
+     * @return the correct gesture, or one of the other gestures at the error rate
+     */
+    private Gesture showGesture(int secret, int guess, SplittableRandom random) {
+        Gesture truth = secret == guess ? Gesture.STOP : secret > guess ? Gesture.THUMBS_UP : Gesture.THUMBS_DOWN;
+
+        if (random.nextDouble() >= errorRate) {
+            return truth;
+        }
+
+        // Misread as one of the other three gestures, uniformly
+        Gesture misread = PLAYER_GESTURES[random.nextInt(PLAYER_GESTURES.length - 1)];
+        return misread == truth ? PLAYER_GESTURES[PLAYER_GESTURES.length - 1] : misread;
+    }
+
+    /**
+     * Prints the throughput, the rounds-to-win distribution and the failed games.
+     *
+     * @param total the merged results of every thread
+     * @param seconds how long the games took
+     */
+    private void print(Tally total, double seconds) {
+        long won = games - total.nonTerminating;
+        long roundsSum = 0;
+        int maxWinRounds = 0;
+
+        for (int rounds = 1; rounds <= maxRounds; rounds++) {
+            roundsSum += rounds * total.roundsToWin[rounds];
+            if (total.roundsToWin[rounds] > 0) {
+                maxWinRounds = rounds;
+            }
+        }
+
+        System.out.printf("Games: %d in %.2fs (%.0f games/s), error rate: %.3f, threads: %d%n",
+            games, seconds, games / seconds, errorRate, threads);
+        System.out.printf("Rounds to win: mean=%.2f, p50=%d, p99=%d, max=%d%n",
+            won > 0 ? (double) roundsSum / won : 0, percentile(total, won, 50), percentile(total, won, 99), maxWinRounds);
+
+        long longerGames = 0;
+        for (int rounds = 1; rounds <= maxWinRounds; rounds++) {
+            if (rounds > LISTED_ROUNDS) {
+                longerGames += total.roundsToWin[rounds];
+            }
+            else if (total.roundsToWin[rounds] > 0) {
+                System.out.printf("  %3d rounds: %10d (%.3f%%)%n", rounds, total.roundsToWin[rounds],
+                    100.0 * total.roundsToWin[rounds] / games);
+            }
+        }
+
+        if (longerGames > 0) {
+            System.out.printf("  >%2d rounds: %10d (%.3f%%)%n", LISTED_ROUNDS, longerGames, 100.0 * longerGames / games);
+        }
+
+        System.out.printf("Non-terminating games (no win within %d rounds): %d (%.3f%%)%n",
+            maxRounds, total.nonTerminating, 100.0 * total.nonTerminating / games);
+        System.out.printf("Games ended on the wrong number: %d (%.3f%%)%n",
+            total.wrongNumbers, 100.0 * total.wrongNumbers / games);
+    }
+
+    /**
+     * Returns the number of rounds within which the given percentage of won games ended.
+     *
+     * @param total the merged results of every thread
+     * @param won the number of won games
+     * @param percent the percentile, between 0 and 100
+     * @return the number of rounds, or 0 if no game was won
+     */
+    private int percentile(Tally total, long won, double percent) {
+        long target = (long) Math.ceil(won * percent / 100.0);
+        long seen = 0;
+
+        for (int rounds = 1; rounds <= maxRounds; rounds++) {
+            seen += total.roundsToWin[rounds];
+            if (seen >= target && seen > 0) {
+                return rounds;
+            }
+        }
+
+        return 0;
+    }
+
+}
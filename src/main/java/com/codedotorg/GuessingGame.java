@@ -1,14 +1,14 @@
 package com.codedotorg;
 
 import com.codedotorg.modelmanager.CameraController;
+import com.codedotorg.modelmanager.Gesture;
 import com.codedotorg.modelmanager.ModelManager;
+import com.codedotorg.modelmanager.Prediction;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.stage.Stage;
-import javafx.util.Duration;
 
 public class GuessingGame {
 
@@ -30,23 +30,37 @@ public class GuessingGame {
     /** Controls the camera capture and provides frames to the TensorFlow model for classification */
     private CameraController cameraController;
 
-    /** The Timeline to manage how often a prediction is made */
-    private Timeline timeline;
+    /** Loads OpenCV, the model and the camera in the background */
+    private StartupOrchestrator startup;
+
+    /** Whether committed gestures are currently played as turns (false on the Game Over screen) */
+    private boolean playing;
 
     /**
      * Constructor for the GuessingGame class.
-     * Sets up the window using the primaryStage, initializes the model
-     * and camera capture, sets up the game scenes and logic.
+     * Sets up the window using the primaryStage and the game scenes and logic.
+     * The model and camera are loaded in the background once the game starts.
      *
      * @param primaryStage the primary stage for the application
      */
     public GuessingGame(Stage primaryStage) {
-        // Set up the window using the primaryStage
-        setUpWindow(primaryStage);
+        this(primaryStage, null);
+    }
 
-        // Set up the model and camera capture
+    /**
+     * Constructor for the GuessingGame class that reuses an already loaded model,
+     * so several games in one JVM do not each load their own copy.
+     *
+     * @param primaryStage the primary stage for the application
+     * @param model the loaded model to use, or null to load a new one
+     */
+    public GuessingGame(Stage primaryStage, ModelManager model) {
+        // Set up the camera capture; the model is loaded in the background by loadMainScreen
         cameraController = new CameraController();
-        model = new ModelManager();
+        this.model = model;
+
+        // Set up the window using the primaryStage
+        setUpWindow(primaryStage);
         
         // Set up the game scenes and logic
         game = new MainScene();
@@ -75,19 +89,19 @@ public class GuessingGame {
     }
     
     /**
-     * Starts a new guessing game by loading the main
-     * screen and updating the game state.
+     * Starts a new guessing game by listening for committed
+     * gestures and loading the main screen.
      */
     public void playGame() {
-        loadMainScreen();
         updateGame();
+        loadMainScreen();
     }
 
     /**
      * Loads the main screen of the game, setting it to starting defaults
-     * and displaying the window. Captures the camera view and sets the model
-     * for the cameraController object. Retrieves the Loading object and
-     * shows the loading animation while the camera is loading.
+     * and displaying the window. Retrieves the Loading object and shows the
+     * loading animation while OpenCV, the model and the camera load in the
+     * background, then captures the camera view with the loaded model.
      */
     public void loadMainScreen() {
         // Set the game to starting defaults
@@ -96,59 +110,83 @@ public class GuessingGame {
         // Display the window
         window.show();
 
-        // Capture the camera view and set the model for the cameraController object
-        cameraController.captureCamera(game.getCameraView(), model);
-
         // Retrieve the Loading object
         Loading cameraLoading = game.getLoadingAnimation();
 
         // Show the loading animation while the camera is loading
         cameraLoading.showLoadingAnimation(game.getCameraView());
+
+        // Load everything off the JavaFX thread and show the progress
+        startup = new StartupOrchestrator(cameraController, model);
+        startup.setProgressListener((fraction, message) ->
+            Platform.runLater(() -> cameraLoading.setProgress(fraction, message)));
+
+        // Hide the loading animation as soon as the first prediction is made
+        cameraController.setFirstPredictionListener(prediction -> {
+            startup.recordFirstPrediction();
+            Platform.runLater(game::hideLoadingAnimation);
+        });
+
+        startup.start().whenComplete((loaded, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                System.err.println("Startup failed: " + error.getMessage());
+                cameraLoading.getCameraLoadingLabel().setText("Failed to load the model.");
+                return;
+            }
+
+            // Capture the camera view and set the model for the cameraController object
+            model = loaded;
+            cameraController.captureCamera(game.getCameraView(), model);
+        }));
     }
 
     /**
-     * Updates the game by getting the predicted class and score from the CameraController,
-     * showing the user's response and confidence score in the app, getting the result of the
-     * computer's guess, and ending the game if the guess is correct. If the guess is incorrect,
-     * the computer's guess is displayed in the app.
+     * Listens for gestures committed by the CameraController. A gesture is committed
+     * as soon as the player has held it steadily with enough confidence, and the
+     * game reacts to it right away on the JavaFX thread.
      */
     private void updateGame() {
-        timeline = new Timeline(new KeyFrame(Duration.seconds(3), event -> {
-            // Get the predicted class and score from the CameraController
-            String predictedClass = cameraController.getPredictedClass();
-            double predictedScore = cameraController.getPredictedScore();
-
-            if (predictedClass != null) {
-                // Show the user's response and confidence score in the app
-                game.showUserResponse(predictedClass, predictedScore);
-
-                // Get the result of the computer's guess
-                int result = logic.binarySearch(predictedClass);
-
-                // End the game if the guess is correct
-                if (logic.isGuessCorrect(predictedClass)) {
-                    loadGameOver(result);
-                }
-                else {
-                    // Create a String with the computer's guess
-                    String computerGuess = "Computer Guess: " + result;
-
-                    // Update the computer guess label with the number the computer guessed
-                    game.showComputerResponse(computerGuess);
-                }
-            }
-        }));
-        
-        // Specify that the animation should repeat indefinitely
-        timeline.setCycleCount(Timeline.INDEFINITE);
+        cameraController.setGestureListener(prediction -> Platform.runLater(() -> playTurn(prediction)));
+    }
+
+    /**
+     * Plays one turn with a committed gesture by showing the user's response and
+     * confidence score in the app, getting the result of the computer's guess, and
+     * ending the game if the guess is correct. If the guess is incorrect, the
+     * computer's guess is displayed in the app.
+     *
+     * @param prediction the smoothed prediction of the committed gesture
+     */
+    private void playTurn(Prediction prediction) {
+        if (!playing) {
+            return;
+        }
+
+        Gesture gesture = prediction.getGesture();
+        double predictedScore = prediction.getConfidence();
+
+        // Show the user's response and confidence score in the app
+        game.showUserResponse(gesture, predictedScore);
+
+        // Get the result of the computer's guess
+        int result = logic.binarySearch(gesture);
 
-        // Start the animation
-        timeline.play();
+        // End the game if the guess is correct
+        if (logic.isGuessCorrect(gesture)) {
+            loadGameOver(result);
+        }
+        else {
+            // Create a String with the computer's guess
+            String computerGuess = "Computer Guess: " + result;
+
+            // Update the computer guess label with the number the computer guessed
+            game.showComputerResponse(computerGuess);
+        }
     }
 
     /**
      * Loads the Game Over scene with the winner's name and sets the
-     * playAgainButton to reset the game when clicked. Stops the timeline.
+     * playAgainButton to reset the game when clicked. Stops playing gestures.
      *
      * @param winner the name of the winner of the game
      */
@@ -167,14 +205,14 @@ public class GuessingGame {
         // Set the GameOverScene in the window
         window.setScene(gameOverScene);
 
-        // Stop the timeline
-        timeline.stop();
+        // Stop playing committed gestures
+        playing = false;
     }
 
     /**
      * Resets the game by resetting the game logic, creating a new main scene,
-     * and setting the window to display the new scene. If a timeline is currently
-     * running, it is resumed.
+     * and setting the window to display the new scene. Committed gestures are
+     * played again, starting from fresh smoothing.
      */
     public void resetGame() {
         // Reset the GameLogic
@@ -186,10 +224,9 @@ public class GuessingGame {
         // Set the MainScene in the window
         window.setScene(mainScene);
         
-        // Play the timeline if it is not null
-        if (timeline != null) {
-            timeline.play();
-        }
+        // Start playing committed gestures again
+        cameraController.resetGestures();
+        playing = true;
     }
 
 }
@@ -0,0 +1,348 @@
+package com.codedotorg;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.opencv.core.Mat;
+
+import com.codedotorg.modelmanager.FrameRecorder;
+import com.codedotorg.modelmanager.FrameReplayer;
+import com.codedotorg.modelmanager.FrameSource;
+import com.codedotorg.modelmanager.FrameSources;
+import com.codedotorg.modelmanager.InferenceBackend;
+import com.codedotorg.modelmanager.LatencyHistogram;
+import com.codedotorg.modelmanager.MockInferenceBackend;
+import com.codedotorg.modelmanager.ModelManager;
+import com.codedotorg.modelmanager.ModelPredictor;
+import com.codedotorg.modelmanager.NativeResources;
+import com.codedotorg.modelmanager.PipelineMetrics;
+import com.codedotorg.modelmanager.PipelineStage;
+import com.codedotorg.modelmanager.Prediction;
+
+public class HeadlessRunner {
+
+    /** The number of classes the mock backend outputs (the gestures in labels.txt) */
+    private static final int MOCK_CLASSES = 4;
+
+    /** The source used when none is given on the command line */
+    private static final String DEFAULT_SOURCE = "synthetic:640x480";
+
+    /** The model shared by every runner thread */
+    private final ModelManager model;
+
+    /** The source specification each runner thread creates its own source from */
+    private final String sourceSpec;
+
+    /** The number of frames each thread processes, or -1 until the source runs out */
+    private final long framesPerThread;
+
+    /** The target frames per second of each thread, or 0 to run as fast as possible */
+    private final double fps;
+
+    /** The number of threads pushing frames through the model */
+    private final int threads;
+
+    /** The latency of reading, preprocessing and classifying each frame */
+    private final LatencyHistogram latency;
+
+    /** The number of frames processed by all threads */
+    private final AtomicLong processedFrames;
+
+    /** The number of frames rejected because every inference worker stayed busy */
+    private final AtomicLong rejectedFrames;
+
+    /** The System.nanoTime() at which the threads stop even if frames are left, or Long.MAX_VALUE */
+    private volatile long deadlineNanos;
+
+    /** Records the frames and their predictions to a file, or null when not recording */
+    private FrameRecorder frameRecorder;
+
+    /** The number of replayed frames that had a recorded prediction */
+    private final AtomicLong replayedPredictions;
+
+    /** The number of replayed frames predicted as the same class as when they were recorded */
+    private final AtomicLong matchingPredictions;
+
+    /**
+     * Constructs a new HeadlessRunner.
+     *
+     * @param model the loaded model to push frames through
+     * @param sourceSpec the source specification (see FrameSources.create)
+     * @param framesPerThread the number of frames each thread processes, or -1 until the source runs out
+     * @param fps the target frames per second of each thread, or 0 to run as fast as possible
+     * @param threads the number of threads pushing frames through the model
+     */
+    public HeadlessRunner(ModelManager model, String sourceSpec, long framesPerThread, double fps, int threads) {
+        this.model = model;
+        this.sourceSpec = sourceSpec;
+        this.framesPerThread = framesPerThread;
+        this.fps = fps;
+        this.threads = threads;
+        latency = new LatencyHistogram();
+        processedFrames = new AtomicLong();
+        rejectedFrames = new AtomicLong();
+        deadlineNanos = Long.MAX_VALUE;
+        replayedPredictions = new AtomicLong();
+        matchingPredictions = new AtomicLong();
+    }
+
+    /**
+     * Runs the pipeline without a camera or a display and prints the throughput and latency.
+     * Options: --source=camera:N[:auto|none|WxH@FPS/FOURCC/bN]|video:PATH|images:DIR|synthetic[:WxH], --frames=N (default 1000,
+     * -1 until the source runs out), --fps=F (0 for maximum speed), --threads=N, --workers=N,
+     * --backend=tensorflow|mock, --mock-latency-us=N, --mock-seed=N.
+     * --record=PATH records the frames and predictions for replay:PATH (original pace with
+     * replay-realtime:PATH) and --record-frames=N sets the room in the file (default 1800).
+     * Soak mode runs until the time is up and exits with status 1 if native memory grew:
+     * --soak-minutes=M, --soak-report-seconds=S (default 60), --soak-max-growth-mb=N (default 64).
+     * --capture-cycles=N starts and stops the CameraController capture N times instead, each
+     * running for --cycle-millis=MS (default 200), and exits with status 1 if the live Mats and
+     * Tensors do not return to their baseline after every stop.
+     * --sessions=N plays N game sessions on a GameServer instead, each reading --frames
+     * frames from its own source, and prints the stats of every session.
+     *
+     * @param args the command line options
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = parseOptions(args);
+
+        // Load the OpenCV library locally
+        nu.pattern.OpenCV.loadLocally();
+
+        int threads = Integer.parseInt(options.getOrDefault("threads", "1"));
+        int workers = Integer.parseInt(options.getOrDefault("workers", String.valueOf(threads)));
+
+        // Run the real model unless the mock backend is requested
+        InferenceBackend backend = null;
+        if (options.getOrDefault("backend", "tensorflow").equals("mock")) {
+            backend = new MockInferenceBackend(MOCK_CLASSES,
+                Long.parseLong(options.getOrDefault("mock-latency-us", "0")),
+                Long.parseLong(options.getOrDefault("mock-seed", "42")));
+        }
+
+        ModelManager model = new ModelManager(backend, workers, ModelPredictor.DEFAULT_MAX_BATCH_SIZE);
+
+        // Check that restarting the capture does not leak
+        if (options.containsKey("capture-cycles")) {
+            boolean passed = CaptureCycleCheck.run(model, options.getOrDefault("source", DEFAULT_SOURCE),
+                Integer.parseInt(options.get("capture-cycles")),
+                Long.parseLong(options.getOrDefault("cycle-millis", "200")));
+            model.close();
+
+            if (!passed) {
+                System.exit(1);
+            }
+            return;
+        }
+
+        // Play whole games on several sessions sharing the model
+        if (options.containsKey("sessions")) {
+            SessionPlayer.play(model, options.getOrDefault("source", DEFAULT_SOURCE),
+                Integer.parseInt(options.get("sessions")),
+                Long.parseLong(options.getOrDefault("frames", "1000")),
+                Double.parseDouble(options.getOrDefault("fps", "0")));
+            return;
+        }
+
+        double soakMinutes = Double.parseDouble(options.getOrDefault("soak-minutes", "0"));
+
+        HeadlessRunner runner = new HeadlessRunner(model,
+            options.getOrDefault("source", DEFAULT_SOURCE),
+            soakMinutes > 0 ? -1 : Long.parseLong(options.getOrDefault("frames", "1000")),
+            Double.parseDouble(options.getOrDefault("fps", "0")),
+            threads);
+
+        // Record the run so it can be replayed as a fixture
+        if (options.containsKey("record")) {
+            if (threads != 1) {
+                throw new IllegalArgumentException("--record needs --threads=1 so the frames stay in order");
+            }
+            runner.setFrameRecorder(new FrameRecorder(Paths.get(options.get("record")),
+                Integer.parseInt(options.getOrDefault("record-frames", String.valueOf(FrameRecorder.DEFAULT_CAPACITY)))));
+        }
+
+        if (soakMinutes <= 0) {
+            runner.run();
+            return;
+        }
+
+        boolean passed = NativeMemorySoak.run(runner, (long) (soakMinutes * 60_000),
+            Long.parseLong(options.getOrDefault("soak-report-seconds", "60")) * 1000,
+            Long.parseLong(options.getOrDefault("soak-max-growth-mb", "64")) * 1024 * 1024);
+
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Sets the recorder that copies every frame and its prediction to a file.
+     * Only one runner thread may record. The recorder is closed at the end of run().
+     *
+     * @param frameRecorder the recorder to use, or null to stop recording
+     */
+    public void setFrameRecorder(FrameRecorder frameRecorder) {
+        this.frameRecorder = frameRecorder;
+    }
+
+    /**
+     * Sets the time at which the runner threads stop even if frames are left.
+     *
+     * @param deadlineNanos the System.nanoTime() to stop at, or Long.MAX_VALUE to run until the frames are done
+     */
+    void setDeadlineNanos(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Returns the number of frames processed so far by all runner threads.
+     *
+     * @return the number of processed frames
+     */
+    long getProcessedFrames() {
+        return processedFrames.get();
+    }
+
+    /**
+     * Pushes frames through the model on every thread, then prints the frames
+     * per second and the per-frame latency.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting for the runner threads
+     */
+    public void run() throws InterruptedException {
+        List<Thread> runnerThreads = new ArrayList<>();
+        long start = System.nanoTime();
+
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(this::runSource, "headless-runner-" + i);
+            runnerThreads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : runnerThreads) {
+            thread.join();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println("Source: " + sourceSpec + ", backend: " + model.getBackend().getName()
+            + ", threads: " + threads + ", workers: " + model.getWorkerCount());
+        System.out.printf("Frames: %d in %.2fs (%.1f frames/s)%n", processedFrames.get(), seconds, processedFrames.get() / seconds);
+        if (rejectedFrames.get() > 0) {
+            System.out.println("Rejected frames (all workers busy): " + rejectedFrames.get());
+        }
+        System.out.println("Latency per frame: " + latency);
+
+        // Compare with the predictions made when the frames were recorded
+        if (replayedPredictions.get() > 0) {
+            System.out.printf("Replay: %d of %d frames (%.2f%%) predicted as when they were recorded%n",
+                matchingPredictions.get(), replayedPredictions.get(),
+                100.0 * matchingPredictions.get() / replayedPredictions.get());
+        }
+
+        if (frameRecorder != null) {
+            frameRecorder.close();
+        }
+
+        PipelineMetrics.print();
+    }
+
+    /**
+     * Reads frames from a new source and classifies them until the frame limit is
+     * reached or the source runs out, pacing the reads when a target fps is set.
+     */
+    private void runSource() {
+        FrameSource source = FrameSources.create(sourceSpec);
+
+        if (!source.open()) {
+            System.out.println("Error! " + source.getName() + " can't be opened.");
+            return;
+        }
+
+        Mat frame = NativeResources.newMat();
+        long intervalNanos = fps > 0 ? (long) (1e9 / fps) : 0;
+        long nextFrameNanos = System.nanoTime();
+
+        for (long i = 0; (framesPerThread < 0 || i < framesPerThread) && System.nanoTime() < deadlineNanos; i++) {
+            // Wait for the next frame's slot when running at a fixed pace
+            if (intervalNanos > 0) {
+                long waitNanos = nextFrameNanos - System.nanoTime();
+                if (waitNanos > 0) {
+                    sleepNanos(waitNanos);
+                }
+                nextFrameNanos += intervalNanos;
+            }
+
+            long frameStart = System.nanoTime();
+
+            if (!source.read(frame)) {
+                break;
+            }
+            PipelineMetrics.recordSince(PipelineStage.CAMERA_READ, frameStart);
+
+            Prediction prediction;
+            try {
+                prediction = model.getPrediction(frame);
+            } catch (RejectedExecutionException e) {
+                // More runner threads than workers: skip the frame and go on; the model counts it as rejected
+                rejectedFrames.incrementAndGet();
+                continue;
+            }
+            latency.recordSince(frameStart);
+            processedFrames.incrementAndGet();
+
+            // Count the replayed frames whose class is the same as when they were recorded
+            if (source instanceof FrameReplayer && ((FrameReplayer) source).getRecordedClassIndex() >= 0) {
+                replayedPredictions.incrementAndGet();
+                if (prediction.getClassIndex() == ((FrameReplayer) source).getRecordedClassIndex()) {
+                    matchingPredictions.incrementAndGet();
+                }
+            }
+
+            // Record the frame and its prediction outside of the measured latency
+            if (frameRecorder != null) {
+                frameRecorder.recordPrediction(frameRecorder.record(frame, frameStart), prediction);
+            }
+        }
+
+        NativeResources.release(frame);
+        source.close();
+    }
+
+    /**
+     * Sleeps for the given number of nanoseconds.
+     *
+     * @param nanos the time to sleep
+     */
+    private static void sleepNanos(long nanos) {
+        try {
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Parses options of the form --name=value.
+     *
+     * @param args the command line arguments
+     * @return the options by name
+     */
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        return options;
+    }
+
+}
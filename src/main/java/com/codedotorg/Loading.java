@@ -41,6 +41,17 @@ public class Loading {
         return progress;
     }
 
+    /**
+     * Shows how far the startup has come. Must be called on the JavaFX thread.
+     *
+     * @param fraction the finished part of the startup, between 0 and 1
+     * @param message the step that just finished
+     */
+    public void setProgress(double fraction, String message) {
+        progress.setProgress(fraction);
+        cameraLoadingLabel.setText(message + "...");
+    }
+
     /**
      * Hides the camera view and displays the loading animation.
      */
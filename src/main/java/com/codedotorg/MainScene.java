@@ -1,6 +1,7 @@
 package com.codedotorg;
 
 import com.codedotorg.modelmanager.CameraController;
+import com.codedotorg.modelmanager.Gesture;
 
 import javafx.application.Platform;
 import javafx.geometry.Pos;
@@ -80,6 +81,14 @@ public class MainScene {
         return cameraLoading;
     }
 
+    /**
+     * Hides the loading animation and shows the camera view, for example once
+     * the first prediction has been made.
+     */
+    public void hideLoadingAnimation() {
+        cameraLoading.hideLoadingAnimation(rootLayout, cameraView);
+    }
+
     /**
      * Creates the main screen of the game.
      * 
@@ -146,14 +155,24 @@ public class MainScene {
      * @param predictedScore The predicted score of the user response.
      */
     public void showUserResponse(String predictedClass, double predictedScore) {
+        showUserResponse(Gesture.fromLabel(predictedClass), predictedScore);
+    }
+
+    /**
+     * Displays the user's gesture on the UI.
+     * 
+     * @param gesture The gesture of the predicted class.
+     * @param predictedScore The predicted score of the user response.
+     */
+    public void showUserResponse(Gesture gesture, double predictedScore) {
         // Hide the loading animation
         cameraLoading.hideLoadingAnimation(rootLayout, cameraView);
 
         // Update the label to prompt the user to think of a number
         promptLabel.setText("Higher, Lower, or Correct?");
         
-        // Get the predicted class without the leading number
-        String user = predictedClass.substring(predictedClass.indexOf(" ") + 1);
+        // Get the gesture's name without the leading number
+        String user = gesture.getLabelName();
 
         // Convert the predicted score to an integer percentage
         int percentage = (int)(predictedScore * 100);
@@ -0,0 +1,81 @@
+package com.codedotorg;
+
+import com.codedotorg.modelmanager.NativeResource;
+import com.codedotorg.modelmanager.NativeResources;
+
+final class NativeMemorySoak {
+
+    /**
+     * NativeMemorySoak only has static members.
+     */
+    private NativeMemorySoak() {
+    }
+
+    /**
+     * Runs the pipeline of the given runner for the given time and checks that native
+     * memory stays flat. A baseline is taken after the first report interval, once
+     * buffers and caches have warmed up; at the end the live Mats and Tensors must not
+     * exceed the baseline and the resident set size must not have grown by more than the limit.
+     *
+     * @param runner the runner to push frames with, which runs until the time is up
+     * @param durationMillis how long to run
+     * @param reportMillis how often to print the native resource counts
+     * @param maxResidentGrowthBytes the largest allowed growth of the resident set size
+     * @return true if native memory stayed flat, false otherwise
+     * @throws InterruptedException if the thread is interrupted while waiting for the runner
+     */
+    static boolean run(HeadlessRunner runner, long durationMillis, long reportMillis, long maxResidentGrowthBytes)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        runner.setDeadlineNanos(start + durationMillis * 1_000_000);
+
+        Thread runnerThread = new Thread(() -> {
+            try {
+                runner.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "headless-soak");
+        runnerThread.start();
+
+        long baselineMats = -1;
+        long baselineTensors = -1;
+        long baselineResident = -1;
+
+        while (runnerThread.isAlive()) {
+            runnerThread.join(reportMillis);
+
+            long liveMats = NativeResources.getLive(NativeResource.MAT);
+            long liveTensors = NativeResources.getLive(NativeResource.TENSOR);
+            long resident = NativeResources.getResidentBytes();
+            System.out.printf("Soak %.1f min: frames=%d, live Mats=%d, live Tensors=%d, resident=%.1fMB%n",
+                (System.nanoTime() - start) / 60e9, runner.getProcessedFrames(), liveMats, liveTensors, resident / 1048576.0);
+
+            // Take the baseline after the first interval, once everything has warmed up
+            if (baselineMats < 0 && runnerThread.isAlive()) {
+                baselineMats = liveMats;
+                baselineTensors = liveTensors;
+                baselineResident = resident;
+            }
+        }
+
+        if (baselineMats < 0) {
+            System.out.println("Soak FAILED: the run ended before the first report, so there is no baseline");
+            return false;
+        }
+
+        // The runner threads released their frames, so the counts can only be lower than during the run
+        long liveMats = NativeResources.getLive(NativeResource.MAT);
+        long liveTensors = NativeResources.getLive(NativeResource.TENSOR);
+        long growth = NativeResources.getResidentBytes() - baselineResident;
+
+        boolean passed = liveMats <= baselineMats && liveTensors <= baselineTensors
+            && (baselineResident < 0 || growth <= maxResidentGrowthBytes);
+
+        System.out.printf("Soak %s: live Mats %d -> %d, live Tensors %d -> %d, resident growth %.1fMB (limit %.0fMB)%n",
+            passed ? "passed" : "FAILED", baselineMats, liveMats, baselineTensors, liveTensors,
+            growth / 1048576.0, maxResidentGrowthBytes / 1048576.0);
+        return passed;
+    }
+
+}
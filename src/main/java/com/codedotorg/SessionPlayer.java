@@ -0,0 +1,49 @@
+package com.codedotorg;
+
+import java.util.concurrent.TimeUnit;
+
+import com.codedotorg.modelmanager.FrameSources;
+import com.codedotorg.modelmanager.ModelManager;
+import com.codedotorg.modelmanager.PipelineMetrics;
+
+final class SessionPlayer {
+
+    /**
+     * SessionPlayer only has static members.
+     */
+    private SessionPlayer() {
+    }
+
+    /**
+     * Opens the given number of sessions on a GameServer, each with its own source
+     * created from the specification, plays them all at once and prints the stats
+     * of every session.
+     *
+     * @param model the loaded model shared by the sessions
+     * @param sourceSpec the source specification each session creates its own source from
+     * @param sessions the number of sessions to open
+     * @param framesPerSession the number of frames each session submits, or -1 until its source runs out
+     * @param fps the target frames per second of each session, or 0 to run as fast as possible
+     * @throws InterruptedException if the thread is interrupted while waiting for the sessions
+     */
+    static void play(ModelManager model, String sourceSpec, int sessions, long framesPerSession, double fps)
+            throws InterruptedException {
+        GameServer server = new GameServer(model);
+
+        for (int i = 0; i < sessions; i++) {
+            server.openSession(FrameSources.create(sourceSpec));
+        }
+
+        long start = System.nanoTime();
+        server.play(framesPerSession, fps);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("Source: %s, backend: %s, sessions: %d, workers: %d, %.2fs%n",
+            sourceSpec, model.getBackend().getName(), sessions, model.getWorkerCount(), seconds);
+        server.printStats();
+        server.shutdown(1, TimeUnit.SECONDS);
+
+        PipelineMetrics.print();
+    }
+
+}
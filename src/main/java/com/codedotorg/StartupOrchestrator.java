@@ -0,0 +1,177 @@
+package com.codedotorg;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import org.opencv.core.Mat;
+
+import com.codedotorg.modelmanager.CameraController;
+import com.codedotorg.modelmanager.ModelManager;
+import com.codedotorg.modelmanager.NativeResources;
+import com.codedotorg.modelmanager.SyntheticFrameSource;
+
+public class StartupOrchestrator {
+
+    /** The number of startup steps reported as progress */
+    private static final int STEP_COUNT = 4;
+
+    /** The number of predictions run on synthetic frames before the camera frames arrive */
+    private static final int WARMUP_FRAMES = 3;
+
+    /** The camera controller whose frame source is opened during startup */
+    private final CameraController cameraController;
+
+    /** The already loaded model to reuse, or null to load one */
+    private final ModelManager preloadedModel;
+
+    /** Runs the startup steps off the JavaFX thread */
+    private final ExecutorService executor;
+
+    /** The number of startup steps that have finished */
+    private final AtomicInteger completedSteps;
+
+    /** Whether the time to the first prediction has been logged */
+    private final AtomicBoolean firstPredictionRecorded;
+
+    /** Called with the progress (0 to 1) and a message whenever a step finishes */
+    private volatile BiConsumer<Double, String> progressListener;
+
+    /** When start() was called */
+    private long startNanos;
+
+    /**
+     * Constructs a new StartupOrchestrator.
+     *
+     * @param cameraController the camera controller whose frame source is opened during startup
+     * @param preloadedModel an already loaded model to reuse, or null to load one
+     */
+    public StartupOrchestrator(CameraController cameraController, ModelManager preloadedModel) {
+        this.cameraController = cameraController;
+        this.preloadedModel = preloadedModel;
+        completedSteps = new AtomicInteger();
+        firstPredictionRecorded = new AtomicBoolean();
+
+        executor = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "startup");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sets the listener told about each finished step. It is called on the
+     * background thread that finished the step.
+     *
+     * @param progressListener receives the progress between 0 and 1 and a message for the user
+     */
+    public void setProgressListener(BiConsumer<Double, String> progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Starts loading in the background. The OpenCV natives are loaded first because
+     * both the model buffers and the camera need them; the model is then loaded
+     * while the camera opens, and a few warm-up predictions run as soon as the
+     * model is ready so the first camera frame does not pay for graph initialization.
+     *
+     * @return completes with the loaded and warmed-up model once the camera has been opened as well
+     */
+    public CompletableFuture<ModelManager> start() {
+        startNanos = System.nanoTime();
+
+        CompletableFuture<Void> openCv = CompletableFuture.runAsync(() -> {
+            nu.pattern.OpenCV.loadLocally();
+            stepFinished("OpenCV loaded");
+        }, executor);
+
+        // Load and warm up the model
+        CompletableFuture<ModelManager> model = openCv.thenApplyAsync(ignored -> {
+            ModelManager loaded = preloadedModel != null ? preloadedModel : new ModelManager();
+            stepFinished("Model loaded");
+
+            warmUp(loaded);
+            stepFinished("Model warmed up");
+            return loaded;
+        }, executor);
+
+        // Open the camera at the same time; a failure is reported again when the capture starts
+        CompletableFuture<Void> camera = openCv.thenRunAsync(() -> {
+            boolean opened = cameraController.openFrameSource();
+            stepFinished(opened ? "Camera opened" : "Camera unavailable");
+        }, executor);
+
+        return model.thenCombine(camera, (loaded, ignored) -> {
+            System.out.printf("Startup finished in %.0fms%n", elapsedMillis());
+            executor.shutdown();
+            return loaded;
+        });
+    }
+
+    /**
+     * Logs the time from start() and from JVM start to the first prediction.
+     * Only the first call is logged.
+     */
+    public void recordFirstPrediction() {
+        if (firstPredictionRecorded.compareAndSet(false, true)) {
+            long uptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+            System.out.printf("Time to first prediction: %.0fms after startup began, %dms after JVM start%n",
+                elapsedMillis(), uptimeMillis);
+        }
+    }
+
+    /**
+     * Runs a few predictions on synthetic camera-sized frames.
+     *
+     * @param model the model to warm up
+     */
+    private void warmUp(ModelManager model) {
+        long warmUpStart = System.nanoTime();
+        SyntheticFrameSource source = new SyntheticFrameSource(640, 480, WARMUP_FRAMES, 0);
+        Mat frame = NativeResources.newMat();
+
+        try {
+            source.open();
+            while (source.read(frame)) {
+                model.getPrediction(frame);
+            }
+        } catch (RuntimeException e) {
+            // A failed warm-up only costs time on the first real frame
+            System.err.println("Model warm-up failed: " + e.getMessage());
+        } finally {
+            source.close();
+            NativeResources.release(frame);
+        }
+
+        System.out.printf("Model warmed up in %.0fms%n", (System.nanoTime() - warmUpStart) / 1e6);
+    }
+
+    /**
+     * Reports a finished step to the progress listener.
+     *
+     * @param message the message for the user
+     */
+    private void stepFinished(String message) {
+        double progress = (double) completedSteps.incrementAndGet() / STEP_COUNT;
+        System.out.printf("Startup: %s (%.0fms)%n", message, elapsedMillis());
+
+        BiConsumer<Double, String> listener = progressListener;
+        if (listener != null) {
+            listener.accept(progress, message);
+        }
+    }
+
+    /**
+     * Returns the time since start() was called.
+     *
+     * @return the elapsed time in milliseconds
+     */
+    private double elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1e6;
+    }
+
+}
@@ -0,0 +1,11 @@
+package com.codedotorg.modelmanager;
+
+public enum BackpressurePolicy {
+
+    /** Keep up to the buffer capacity of predictions, dropping the oldest when a new one arrives */
+    DROP_OLDEST,
+
+    /** Keep only the newest prediction, for readers that only care about the current state */
+    LATEST_ONLY
+
+}
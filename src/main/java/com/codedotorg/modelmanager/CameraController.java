@@ -1,131 +1,520 @@
 package com.codedotorg.modelmanager;
 
-import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
-import org.opencv.core.*;
-import org.opencv.videoio.VideoCapture;
-
-import javafx.application.Platform;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 
-import org.opencv.imgcodecs.Imgcodecs;
-
 public class CameraController {
 
-    /** The predicted class from the model */
-    private String predictedClass;
+    /** The number of preallocated frames shared by the capture and inference threads */
+    private static final int FRAME_BUFFER_SIZE = 3;
+
+    /** How long the inference thread waits for a new frame before checking if capture stopped */
+    private static final long FRAME_WAIT_MILLIS = 100;
+
+    /** How long a restart or close waits for the threads of the previous capture to finish */
+    private static final long STOP_WAIT_MILLIS = 2000;
+
+    /** The newest prediction, replaced as a whole so its class and score always belong to the same frame */
+    private volatile Prediction latestPrediction;
+
+    /** Streams every prediction to subscribers such as the UI, the game logic and metrics */
+    private final PredictionPublisher predictionPublisher;
+
+    /** Whether the current capture should keep running; each capture gets its own flag so a restart cannot revive old threads */
+    private volatile AtomicBoolean running;
+
+    /** The thread reading frames of the current capture */
+    private Thread captureThread;
+
+    /** The thread classifying frames of the current capture */
+    private Thread inferenceThread;
+
+    /** Holds the frames passed from the capture thread to the inference thread */
+    private volatile FrameRingBuffer frameBuffer;
+
+    /** Smooths the predictions and commits gestures that are held steadily */
+    private volatile GestureSmoother gestureSmoother;
+
+    /** Called whenever a gesture is committed */
+    private volatile Consumer<Prediction> gestureListener;
+
+    /** Reuses the previous prediction while the scene has not changed */
+    private MotionGate motionGate;
+
+    /** Where the captured frames come from */
+    private FrameSource frameSource;
+
+    /** Whether the frame source was already opened by openFrameSource() */
+    private volatile boolean frameSourceOpened;
+
+    /** Converts captured frames into images for the camera view, created when the capture starts */
+    private PreviewRenderer previewRenderer;
+
+    /** How the preview is rendered */
+    private PreviewMode previewMode;
 
-    /** The confidence score of the model */
-    private float predictedScore;
+    /** Called once with the first prediction after the capture starts */
+    private volatile Consumer<Prediction> firstPredictionListener;
 
-    /** Whether or not the camera capture is running */
-    private static volatile boolean running = true;
+    /** Records the captured frames and their predictions to a file, or null when not recording */
+    private FrameRecorder frameRecorder;
 
     /**
      * Constructor for CameraController class.
-     * Loads OpenCV locally and initializes predictedClass and predictedScore to null and 0 respectively.
+     * Starts without a prediction.
+     * Nothing here needs OpenCV, so the controller can be created on the JavaFX
+     * thread while the natives are still loading in the background.
      */
     public CameraController() {
-        // Load the OpenCV library locally
-        nu.pattern.OpenCV.loadLocally();
+        // There is no prediction until the first frame has been classified
+        latestPrediction = null;
+
+        // Deliver predictions on separate threads so subscribers never slow down inference
+        predictionPublisher = new PredictionPublisher();
+
+        // Capture from the system default camera (0) unless another source is set, with the
+        // capture profile from -Dguessinggame.capture (the driver's defaults unless one is given)
+        frameSource = CameraFrameSource.fromSystemProperties(0);
 
-        // Set predictedClass to null at start
-        predictedClass = null;
+        // Render the preview through the zero-copy PixelBuffer path by default
+        previewMode = PreviewMode.PIXEL_BUFFER;
 
-        // Set predictedScore to 0 at start
-        predictedScore = 0;
+        // Record the session if a recording file was given on the command line
+        frameRecorder = FrameRecorder.fromSystemProperties();
+    }
+
+    /**
+     * Opens the frame source ahead of captureCamera, so the camera can start up
+     * while the model is still loading. OpenCV must already be loaded.
+     *
+     * @return true if the source was opened, false otherwise
+     */
+    public boolean openFrameSource() {
+        frameSourceOpened = frameSource.open();
+        return frameSourceOpened;
     }
 
     /**
      * Captures camera frames and displays them in an ImageView while running.
+     * Capture and inference run on separate threads joined by a FrameRingBuffer,
+     * so the preview runs at the camera's frame rate and predictions are always
+     * made from the newest frame. The preview is drawn on the JavaFX pulse, so a
+     * busy JavaFX thread skips frames instead of falling behind. The capture can be started again after stopCapture().
+     * Without an ImageView nothing is rendered, so the capture also runs headless, without the JavaFX toolkit.
      * 
-     * @param imageView the ImageView to display the captured frames
+     * @param imageView the ImageView to display the captured frames, or null to capture without a preview
      * @param model the ModelManager to use for predicting the class and score of the captured frames
+     * @throws IllegalStateException if the capture is already running
      */
-    public void captureCamera(ImageView imageView, ModelManager model) {
+    public synchronized void captureCamera(ImageView imageView, ModelManager model) {
+        if (running != null && running.get()) {
+            throw new IllegalStateException("The capture is already running; call stopCapture() first");
+        }
+
+        // Let the threads of a stopped capture finish before their Mats are reused
+        awaitStopped();
+
+        // Load the OpenCV library locally (does nothing if it is already loaded)
+        nu.pattern.OpenCV.loadLocally();
+
+        // Skip the model while the player holds still or nobody is in front of the camera
+        if (motionGate == null) {
+            motionGate = new MotionGate();
+        }
+        motionGate.reset();
+
+        // Create the renderer that converts frames for the camera view, unless there is none
+        if (previewRenderer == null && imageView != null) {
+            previewRenderer = new PreviewRenderer(previewMode);
+        }
+
+        // Create the buffer of preallocated frames shared by the capture and inference threads
+        FrameRingBuffer buffer = new FrameRingBuffer(FRAME_BUFFER_SIZE);
+        frameBuffer = buffer;
+
+        // The flag and buffer of this capture; the last of its two threads to finish releases the frames
+        AtomicBoolean active = new AtomicBoolean(true);
+        running = active;
+        AtomicInteger liveThreads = new AtomicInteger(2);
+        Runnable threadFinished = () -> {
+            if (liveThreads.decrementAndGet() == 0) {
+                buffer.releaseFrames();
+            }
+        };
+
+        // Smooth the predictions over time and report gestures as soon as they are stable
+        if (gestureSmoother == null) {
+            gestureSmoother = new GestureSmoother(model.getModelProcessor().getLabels());
+        }
+        gestureSmoother.setListener(gestureListener);
+
         // Create a new thread to run the camera capture to prevent the camera from
         // from blocking the main thread and causing the app to become unresponsive
-        new Thread(() -> {
-            // Create a VideoCapture with the system default camera (0)
-            VideoCapture camera = new VideoCapture(0);
+        captureThread = new Thread(() -> {
+            try {
+                captureFrames(imageView, buffer, active);
+            } finally {
+                threadFinished.run();
+            }
+        }, "camera-capture");
 
-            if (!camera.isOpened()) {
-                System.out.println("Error! Camera can't be opened.");
-                return;
+        // Create a separate thread to run the model so inference never slows down the capture
+        inferenceThread = new Thread(() -> {
+            try {
+                inferFrames(model, buffer, active);
+            } finally {
+                threadFinished.run();
             }
+        }, "camera-inference");
 
-            // Create a new frame to host the image from the camera
-            Mat frame = new Mat();
+        captureThread.start();
+        inferenceThread.start();
+    }
 
-            while (running) {
-                // Capture the frame
-                if (camera.read(frame)) {
-                    // Convert and display the image from the camera
-                    Image img = matToImage(frame);
+    /**
+     * Reads frames from the frame source, shows them and publishes them to the
+     * inference thread until the capture is stopped or the source fails.
+     *
+     * @param imageView the ImageView to display the captured frames, or null to capture without a preview
+     * @param buffer the frame buffer of this capture
+     * @param active the running flag of this capture
+     */
+    private void captureFrames(ImageView imageView, FrameRingBuffer buffer, AtomicBoolean active) {
+        // Open the frame source (the system default camera unless another source was set)
+        FrameSource camera = frameSource;
 
-                    // Update the image displayed in the image view
-                    Platform.runLater(() -> imageView.setImage(img));
+        if (!frameSourceOpened && !camera.open()) {
+            System.out.println("Error! " + camera.getName() + " can't be opened.");
+            active.set(false);
+            buffer.close();
+            return;
+        }
 
-                    // Get the predicted result from the model
-                    Prediction result = model.getPrediction(frame);
+        // Show the newest frame on every JavaFX pulse instead of queueing an update per frame
+        PreviewRenderer preview = imageView != null ? previewRenderer : null;
+        if (preview != null) {
+            preview.start(imageView);
+        }
+
+        while (active.get()) {
+            // Get a free frame to capture into
+            Frame frame = buffer.beginWrite();
+
+            // Capture the frame
+            long readStart = System.nanoTime();
+            if (camera.read(frame.getMat())) {
+                PipelineMetrics.recordSince(PipelineStage.CAMERA_READ, readStart);
+
+                // Copy the frame into the recording; its prediction is added by the inference thread
+                FrameRecorder recorder = frameRecorder;
+                frame.setRecordIndex(recorder != null ? recorder.record(frame.getMat(), readStart) : -1);
+
+                // Convert the image for the preview, which shows the newest one on the next JavaFX pulse
+                if (preview != null) {
+                    long convertStart = System.nanoTime();
+                    preview.publish(frame.getMat());
+                    PipelineMetrics.recordSince(PipelineStage.PREVIEW_CONVERT, convertStart);
+                }
+
+                // Hand the frame to the inference thread, replacing any frame it has not taken yet
+                buffer.publish();
+            }
+            else {
+                PipelineMetrics.increment(PipelineCounter.CAPTURE_ERRORS);
+                System.out.println("Cannot capture the frame.");
+                break;
+            }
+        }
+
+        // Stop the preview, release the camera after usage and wake up the inference thread
+        if (preview != null) {
+            preview.stop();
+        }
+        camera.close();
+        frameSourceOpened = false;
+        active.set(false);
+        buffer.close();
+    }
 
-                    // Get the predicted class from the result
-                    predictedClass = result.getClassName();
+    /**
+     * Classifies the newest frame from the capture thread until the capture is stopped.
+     *
+     * @param model the ModelManager to predict with
+     * @param buffer the frame buffer of this capture
+     * @param active the running flag of this capture
+     */
+    private void inferFrames(ModelManager model, FrameRingBuffer buffer, AtomicBoolean active) {
+        boolean firstPrediction = true;
+
+        while (active.get()) {
+            Frame frame;
+
+            try {
+                // Wait for the newest frame from the capture thread
+                frame = buffer.takeLatest(FRAME_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            if (frame == null) {
+                continue;
+            }
+
+            try {
+                Prediction result;
+                long now = System.nanoTime();
 
-                    // Get the predicted score from the result
-                    predictedScore = result.getConfidence();
+                if (motionGate.shouldInfer(frame.getMat(), now)) {
+                    // Get the predicted result from the model
+                    result = model.getPrediction(frame.getMat());
+                    motionGate.recordInference(result, now);
                 }
                 else {
-                    System.out.println("Cannot capture the frame.");
-                    break;
+                    // The scene has not changed, so reuse the previous result
+                    result = motionGate.getLastPrediction();
+                    PipelineMetrics.increment(PipelineCounter.INFERENCES_SKIPPED);
+                }
+
+                // Number and timestamp the result with its frame and publish it
+                result = result.stamp(frame.getSequence(), frame.getCaptureNanos());
+                latestPrediction = result;
+                predictionPublisher.submit(result);
+
+                // Store the prediction next to the recorded frame
+                FrameRecorder recorder = frameRecorder;
+                if (recorder != null) {
+                    recorder.recordPrediction(frame.getRecordIndex(), result);
                 }
+
+                // Report the first prediction, for example to hide the loading animation
+                Consumer<Prediction> listener = firstPredictionListener;
+                if (firstPrediction && listener != null) {
+                    listener.accept(result);
+                }
+                firstPrediction = false;
+
+                // Feed the probabilities to the smoother, which may commit a gesture
+                gestureSmoother.update(result, frame.getCaptureNanos());
+            } catch (RuntimeException e) {
+                // Count the failure and keep going with the next frame
+                PipelineMetrics.increment(PipelineCounter.INFERENCE_ERRORS);
+                System.err.println("Prediction failed: " + e.getMessage());
+            } finally {
+                // Let the capture thread reuse the frame
+                buffer.release(frame);
             }
+        }
+    }
 
-            // Release the camera after usage
-            camera.release();
-        }).start();
+    /**
+     * Sets the listener called on the inference thread whenever the player has
+     * held a gesture steadily enough for it to be committed.
+     *
+     * @param listener the listener receiving the smoothed prediction of the committed gesture
+     */
+    public void setGestureListener(Consumer<Prediction> listener) {
+        gestureListener = listener;
+
+        if (gestureSmoother != null) {
+            gestureSmoother.setListener(listener);
+        }
+    }
+
+    /**
+     * Sets the listener called on the inference thread with the first prediction
+     * after captureCamera starts.
+     *
+     * @param listener the listener receiving the first prediction
+     */
+    public void setFirstPredictionListener(Consumer<Prediction> listener) {
+        firstPredictionListener = listener;
+    }
+
+    /**
+     * Sets the smoother used to commit gestures, for example one with a different
+     * confidence or hold time. Must be called before captureCamera.
+     *
+     * @param gestureSmoother the smoother to use
+     */
+    public void setGestureSmoother(GestureSmoother gestureSmoother) {
+        this.gestureSmoother = gestureSmoother;
+    }
+
+    /**
+     * Sets the gate that skips the model while the scene has not changed,
+     * for example one with a different threshold or staleness. Must be called
+     * before captureCamera.
+     *
+     * @param motionGate the motion gate to use
+     */
+    public void setMotionGate(MotionGate motionGate) {
+        this.motionGate = motionGate;
+    }
+
+    /**
+     * Forgets the smoothed predictions, for example when a new game starts.
+     */
+    public void resetGestures() {
+        if (gestureSmoother != null) {
+            gestureSmoother.reset();
+        }
+    }
+
+    /**
+     * Sets where captureCamera reads its frames from, such as a video file,
+     * a directory of images or synthetic frames instead of the camera.
+     *
+     * @param frameSource the source to capture frames from
+     */
+    public void setFrameSource(FrameSource frameSource) {
+        this.frameSource = frameSource;
+    }
+
+    /**
+     * Sets the recorder that copies every captured frame and its prediction to a
+     * file, which a FrameReplayer can feed through the model again later. The
+     * controller closes the recorder in close(). Must be called before captureCamera.
+     *
+     * @param frameRecorder the recorder to use, or null to stop recording
+     */
+    public void setFrameRecorder(FrameRecorder frameRecorder) {
+        this.frameRecorder = frameRecorder;
+    }
+
+    /**
+     * Returns the buffer joining the capture and inference threads, which exposes
+     * counters for the captured, dropped and inferred frames.
+     *
+     * @return the frame buffer, or null if the capture has not started
+     */
+    public FrameRingBuffer getFrameBuffer() {
+        return frameBuffer;
+    }
+
+    /**
+     * Returns the stream of every prediction, numbered and timestamped with the
+     * frame it was made from. Subscribers choose their own buffering, for example
+     * LATEST_ONLY for a display or DROP_OLDEST for metrics.
+     *
+     * @return the prediction publisher
+     */
+    public PredictionPublisher getPredictionPublisher() {
+        return predictionPublisher;
+    }
+
+    /**
+     * Returns the newest prediction.
+     *
+     * @return the newest prediction, or null if no frame has been classified yet
+     */
+    public Prediction getLatestPrediction() {
+        return latestPrediction;
     }
 
     /**
      * Returns the predicted class from the model
      *
-     * @return the predicted class from the model
+     * @return the predicted class from the model, or null if no frame has been classified yet
      */
     public String getPredictedClass() {
-        return predictedClass;
+        Prediction prediction = latestPrediction;
+        return prediction != null ? prediction.getClassName() : null;
     }
 
     /**
      * Returns the predicted confidence score from the model
      *
-     * @return the predicted confidence score from the model
+     * @return the predicted confidence score from the model, or 0 if no frame has been classified yet
      */
     public float getPredictedScore() {
-        return predictedScore;
+        Prediction prediction = latestPrediction;
+        return prediction != null ? prediction.getConfidence() : 0;
     }
 
     /**
-     * Stops the camera capture.
+     * Stops the camera capture. The threads finish on their own within a frame,
+     * releasing the camera and the frames; captureCamera can then be called again.
      */
     public void stopCapture() {
-        running = false;
+        AtomicBoolean active = running;
+
+        if (active != null) {
+            active.set(false);
+        }
     }
 
     /**
-     * Converts a given OpenCV Mat object to a JavaFX Image object.
-     * 
-     * @param frame The OpenCV Mat object to be converted.
-     * @return The JavaFX Image object created from the image encoded in the buffer.
+     * Returns whether a capture is running.
+     *
+     * @return true between captureCamera and stopCapture (or a failed frame source)
      */
-    private Image matToImage(Mat frame) {
-        // Create a temporary buffer to store the encoded image data
-        MatOfByte buffer = new MatOfByte();
+    public boolean isRunning() {
+        AtomicBoolean active = running;
+        return active != null && active.get();
+    }
+
+    /**
+     * Stops the capture, waits for its threads and releases the native memory of
+     * the motion gate and preview renderer. The recording, if any, is flushed to
+     * the disk. Subscribers of the prediction stream
+     * are completed. The controller cannot capture again afterwards.
+     */
+    public synchronized void close() {
+        stopCapture();
+        awaitStopped();
+
+        if (motionGate != null) {
+            motionGate.release();
+        }
+        if (previewRenderer != null) {
+            previewRenderer.release();
+        }
+        if (frameRecorder != null) {
+            frameRecorder.close();
+        }
 
-        // Encode the frame in the buffer, according to the PNG format
-        Imgcodecs.imencode(".png", frame, buffer);
+        predictionPublisher.close();
+    }
+
+    /**
+     * Waits for the threads of the previous capture to finish, after which the
+     * frames and the frame source of that capture have been released.
+     *
+     * @throws IllegalStateException if they do not finish within STOP_WAIT_MILLIS
+     */
+    public void awaitStopped() {
+        try {
+            for (Thread thread : new Thread[] {captureThread, inferenceThread}) {
+                if (thread != null) {
+                    thread.join(STOP_WAIT_MILLIS);
+                    if (thread.isAlive()) {
+                        throw new IllegalStateException(thread.getName() + " did not stop");
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the capture to stop", e);
+        }
+    }
+
+    /**
+     * Sets how captured frames are converted into images for the camera view.
+     * PIXEL_BUFFER copies pixels into a reused buffer, PNG is the original
+     * encode/decode fallback.
+     *
+     * @param mode the preview mode to use
+     */
+    public void setPreviewMode(PreviewMode mode) {
+        previewMode = mode;
 
-        // Build and return an Image created from the image encoded in the buffer
-        return new Image(new ByteArrayInputStream(buffer.toArray()));
+        if (previewRenderer != null) {
+            previewRenderer.setMode(mode);
+        }
     }
 }
@@ -0,0 +1,148 @@
+package com.codedotorg.modelmanager;
+
+import java.util.List;
+
+import org.opencv.core.Mat;
+import org.opencv.videoio.VideoCapture;
+
+public class CameraFrameSource implements FrameSource {
+
+    /** The system property choosing the capture profile: "none" (the default), "auto" or a profile such as "640x480@30/MJPG/b1" */
+    public static final String PROFILE_PROPERTY = "guessinggame.capture";
+
+    /** The system property holding the frame rate the auto mode has to reach */
+    public static final String TARGET_FPS_PROPERTY = "guessinggame.capture.fps";
+
+    /** The index of the camera to open (0 is the system default camera) */
+    private final int cameraIndex;
+
+    /** The profiles to choose from: none keeps the driver's defaults, one is applied, several are measured */
+    private final List<CaptureProfile> profiles;
+
+    /** The frame rate a profile has to reach when several are measured */
+    private final double targetFps;
+
+    /** The profile applied when the camera was opened, or null for the driver's defaults */
+    private CaptureProfile profile;
+
+    /** Whether the profiles were measured on an earlier open, whose choice is then reused */
+    private boolean measured;
+
+    /** The camera capture, created when the source is opened */
+    private VideoCapture camera;
+
+    /**
+     * Constructs a new CameraFrameSource for the camera with the given index,
+     * keeping the driver's default resolution, format and buffering.
+     *
+     * @param cameraIndex the index of the camera (0 is the system default camera)
+     */
+    public CameraFrameSource(int cameraIndex) {
+        this(cameraIndex, List.of(), CaptureProfileSelector.DEFAULT_TARGET_FPS);
+    }
+
+    /**
+     * Constructs a new CameraFrameSource for the camera with the given index and
+     * capture profiles. A single profile is applied as is; with several, each is
+     * measured the first time the camera is opened and the cheapest one reaching
+     * the target frame rate is kept for every later open.
+     *
+     * @param cameraIndex the index of the camera (0 is the system default camera)
+     * @param profiles the profiles to choose from, cheapest first, or an empty list for the driver's defaults
+     * @param targetFps the frame rate a profile has to reach when several are measured
+     */
+    public CameraFrameSource(int cameraIndex, List<CaptureProfile> profiles, double targetFps) {
+        this.cameraIndex = cameraIndex;
+        this.profiles = profiles;
+        this.targetFps = targetFps;
+    }
+
+    /**
+     * Creates a source for the camera with the given index from a profile specification:
+     * "auto" measures the default candidates on the first open, "none" keeps the driver's defaults,
+     * anything else is parsed as a single CaptureProfile.
+     *
+     * @param cameraIndex the index of the camera (0 is the system default camera)
+     * @param spec the profile specification
+     * @param targetFps the frame rate the auto mode has to reach
+     * @return the camera source
+     */
+    public static CameraFrameSource fromSpec(int cameraIndex, String spec, double targetFps) {
+        switch (spec) {
+            case "auto":
+                return new CameraFrameSource(cameraIndex, CaptureProfileSelector.DEFAULT_CANDIDATES, targetFps);
+            case "none":
+                return new CameraFrameSource(cameraIndex);
+            default:
+                return new CameraFrameSource(cameraIndex, List.of(CaptureProfile.parse(spec)), targetFps);
+        }
+    }
+
+    /**
+     * Creates a source for the camera with the given index from the PROFILE_PROPERTY
+     * and TARGET_FPS_PROPERTY system properties. The driver's defaults are kept
+     * unless a profile or the auto mode is requested.
+     *
+     * @param cameraIndex the index of the camera (0 is the system default camera)
+     * @return the camera source
+     */
+    public static CameraFrameSource fromSystemProperties(int cameraIndex) {
+        return fromSpec(cameraIndex, System.getProperty(PROFILE_PROPERTY, "none"),
+            Double.parseDouble(System.getProperty(TARGET_FPS_PROPERTY,
+                String.valueOf(CaptureProfileSelector.DEFAULT_TARGET_FPS))));
+    }
+
+    @Override
+    public boolean open() {
+        camera = new VideoCapture(cameraIndex);
+
+        if (!camera.isOpened()) {
+            return false;
+        }
+
+        // Negotiate the profile before the first frame is read
+        if (profiles.size() == 1) {
+            profile = profiles.get(0);
+            profile.apply(camera);
+            System.out.println("Capture profile " + profile + " delivers " + CaptureProfile.getNegotiated(camera));
+        }
+        else if (profiles.size() > 1 && !measured) {
+            profile = new CaptureProfileSelector(profiles, targetFps).select(camera);
+            measured = true;
+        }
+        else if (profiles.size() > 1 && profile != null) {
+            // Restarts reuse the first measurement instead of cycling the camera through every profile again
+            profile.apply(camera);
+            System.out.println("Reusing capture profile " + profile + ", which delivers " + CaptureProfile.getNegotiated(camera));
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean read(Mat frame) {
+        return camera.read(frame);
+    }
+
+    /**
+     * Returns the profile applied when the camera was opened.
+     *
+     * @return the profile, or null if the driver's defaults are used
+     */
+    public CaptureProfile getProfile() {
+        return profile;
+    }
+
+    @Override
+    public String getName() {
+        return "camera:" + cameraIndex + (profile != null ? ":" + profile : "");
+    }
+
+    @Override
+    public void close() {
+        if (camera != null) {
+            camera.release();
+        }
+    }
+
+}
@@ -0,0 +1,189 @@
+package com.codedotorg.modelmanager;
+
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.VideoWriter;
+import org.opencv.videoio.Videoio;
+
+public final class CaptureProfile {
+
+    /** The width requested from the camera */
+    private final int width;
+
+    /** The height requested from the camera */
+    private final int height;
+
+    /** The pixel format requested from the camera, such as "MJPG" or "YUYV", or null for the driver's default */
+    private final String fourcc;
+
+    /** The number of frames the driver may queue, or 0 for the driver's default */
+    private final int bufferSize;
+
+    /** The frame rate requested from the camera, or 0 for the driver's default */
+    private final double fps;
+
+    /**
+     * Constructs a new CaptureProfile.
+     *
+     * @param width the width requested from the camera
+     * @param height the height requested from the camera
+     * @param fourcc the four-character pixel format, such as "MJPG" or "YUYV", or null for the driver's default
+     * @param bufferSize the number of frames the driver may queue, or 0 for the driver's default
+     * @param fps the frame rate requested from the camera, or 0 for the driver's default
+     */
+    public CaptureProfile(int width, int height, String fourcc, int bufferSize, double fps) {
+        if (fourcc != null && fourcc.length() != 4) {
+            throw new IllegalArgumentException("A FOURCC has four characters, got " + fourcc);
+        }
+
+        this.width = width;
+        this.height = height;
+        this.fourcc = fourcc;
+        this.bufferSize = bufferSize;
+        this.fps = fps;
+    }
+
+    /**
+     * Parses a profile of the form WIDTHxHEIGHT[@FPS][/FOURCC][/bBUFFERS],
+     * for example "640x480@30/MJPG/b1".
+     *
+     * @param spec the profile specification
+     * @return the profile
+     * @throws IllegalArgumentException if the specification is malformed
+     */
+    public static CaptureProfile parse(String spec) {
+        String[] parts = spec.split("/");
+        String size = parts[0];
+        double fps = 0;
+
+        if (size.contains("@")) {
+            fps = Double.parseDouble(size.substring(size.indexOf('@') + 1));
+            size = size.substring(0, size.indexOf('@'));
+        }
+
+        String[] dimensions = size.split("x");
+        if (dimensions.length != 2) {
+            throw new IllegalArgumentException("Expected WIDTHxHEIGHT[@FPS][/FOURCC][/bBUFFERS] but got " + spec);
+        }
+
+        String fourcc = null;
+        int bufferSize = 0;
+
+        for (int i = 1; i < parts.length; i++) {
+            if (parts[i].matches("b\\d+")) {
+                bufferSize = Integer.parseInt(parts[i].substring(1));
+            }
+            else {
+                fourcc = parts[i].toUpperCase();
+            }
+        }
+
+        return new CaptureProfile(Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]),
+            fourcc, bufferSize, fps);
+    }
+
+    /**
+     * Requests the profile from an opened camera. The pixel format is set before
+     * the size, since some drivers only offer certain sizes in certain formats.
+     * Drivers may ignore or round any request; getNegotiated() tells what the camera
+     * actually delivers.
+     *
+     * @param camera the opened camera
+     */
+    public void apply(VideoCapture camera) {
+        if (fourcc != null) {
+            camera.set(Videoio.CAP_PROP_FOURCC,
+                VideoWriter.fourcc(fourcc.charAt(0), fourcc.charAt(1), fourcc.charAt(2), fourcc.charAt(3)));
+        }
+
+        camera.set(Videoio.CAP_PROP_FRAME_WIDTH, width);
+        camera.set(Videoio.CAP_PROP_FRAME_HEIGHT, height);
+
+        if (fps > 0) {
+            camera.set(Videoio.CAP_PROP_FPS, fps);
+        }
+        if (bufferSize > 0) {
+            camera.set(Videoio.CAP_PROP_BUFFERSIZE, bufferSize);
+        }
+    }
+
+    /**
+     * Returns the profile the camera actually delivers, after apply() or with the driver's defaults.
+     *
+     * @param camera the opened camera
+     * @return the negotiated size, pixel format, buffer depth and frame rate
+     */
+    public static CaptureProfile getNegotiated(VideoCapture camera) {
+        int code = (int) camera.get(Videoio.CAP_PROP_FOURCC);
+        String fourcc = null;
+
+        // The FOURCC packs its four characters into an int, first character in the lowest byte
+        if (code != 0) {
+            char[] chars = new char[4];
+            for (int i = 0; i < 4; i++) {
+                chars[i] = (char) ((code >> (8 * i)) & 0xFF);
+            }
+            fourcc = new String(chars);
+        }
+
+        return new CaptureProfile((int) camera.get(Videoio.CAP_PROP_FRAME_WIDTH),
+            (int) camera.get(Videoio.CAP_PROP_FRAME_HEIGHT), fourcc,
+            Math.max(0, (int) camera.get(Videoio.CAP_PROP_BUFFERSIZE)),
+            Math.max(0, camera.get(Videoio.CAP_PROP_FPS)));
+    }
+
+    /**
+     * Returns the width requested from the camera.
+     *
+     * @return the width in pixels
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height requested from the camera.
+     *
+     * @return the height in pixels
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the pixel format requested from the camera.
+     *
+     * @return the FOURCC, or null for the driver's default
+     */
+    public String getFourcc() {
+        return fourcc;
+    }
+
+    /**
+     * Returns the number of frames the driver may queue.
+     *
+     * @return the buffer depth, or 0 for the driver's default
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Returns the frame rate requested from the camera.
+     *
+     * @return the frames per second, or 0 for the driver's default
+     */
+    public double getFps() {
+        return fps;
+    }
+
+    /**
+     * Returns the profile in the form parse() accepts.
+     *
+     * @return the profile specification, such as "640x480@30/MJPG/b1"
+     */
+    public String toString() {
+        return width + "x" + height + (fps > 0 ? "@" + (fps == (int) fps ? String.valueOf((int) fps) : String.valueOf(fps)) : "")
+            + (fourcc != null ? "/" + fourcc : "") + (bufferSize > 0 ? "/b" + bufferSize : "");
+    }
+
+}
@@ -0,0 +1,190 @@
+package com.codedotorg.modelmanager;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.opencv.core.Mat;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.Videoio;
+
+public class CaptureProfileSelector {
+
+    /**
+     * The profiles tried in auto mode, cheapest first. The model only needs 224x224,
+     * so nothing larger than 640x480 is tried, and a single-frame buffer keeps the
+     * driver from handing out stale frames.
+     */
+    public static final List<CaptureProfile> DEFAULT_CANDIDATES = List.of(
+        CaptureProfile.parse("320x240@30/MJPG/b1"),
+        CaptureProfile.parse("320x240@30/YUYV/b1"),
+        CaptureProfile.parse("640x480@30/MJPG/b1"),
+        CaptureProfile.parse("640x480@30/YUYV/b1"));
+
+    /** The frame rate a profile has to reach when no target is given */
+    public static final double DEFAULT_TARGET_FPS = 30;
+
+    /** The fraction of the target frame rate a profile has to reach, since cameras rarely hit it exactly */
+    private static final double TARGET_TOLERANCE = 0.9;
+
+    /** How much cheaper a later (larger) candidate has to be to replace an earlier one, so noise does not pick it */
+    private static final double MIN_IMPROVEMENT = 0.1;
+
+    /** The number of untimed frames read after switching profiles, while the camera restarts its stream */
+    private static final int WARMUP_FRAMES = 5;
+
+    /** The number of timed frames per profile */
+    private static final int MEASURED_FRAMES = 20;
+
+    /** Frame ages above this are treated as a driver that does not report capture timestamps */
+    private static final long MAX_PLAUSIBLE_AGE_MILLIS = 5000;
+
+    /** The frame rate a profile has to reach */
+    private final double targetFps;
+
+    /** The profiles to try, cheapest first */
+    private final List<CaptureProfile> candidates;
+
+    /**
+     * Constructs a new CaptureProfileSelector.
+     *
+     * @param candidates the profiles to try, cheapest first
+     * @param targetFps the frame rate a profile has to reach
+     */
+    public CaptureProfileSelector(List<CaptureProfile> candidates, double targetFps) {
+        if (candidates.isEmpty()) {
+            throw new IllegalArgumentException("The selector needs at least one candidate profile");
+        }
+
+        this.candidates = candidates;
+        this.targetFps = targetFps;
+    }
+
+    /**
+     * Applies each candidate to the opened camera and measures it, then applies and
+     * returns the one with the lowest cost among those reaching the target frame rate.
+     * The cost is the CPU time the capture thread spends per frame (decoding and
+     * converting) plus the median frame age, since both add to the end-to-end latency.
+     * A later candidate has to be clearly cheaper to win, so ties keep the smaller
+     * profile. If no profile reaches the target, the fastest one is kept.
+     *
+     * @param camera the opened camera
+     * @return the chosen profile, or null if no profile delivered frames
+     */
+    public CaptureProfile select(VideoCapture camera) {
+        CaptureProfile best = null;
+        double bestCost = Double.MAX_VALUE;
+        boolean bestMeetsTarget = false;
+        double bestFps = 0;
+
+        Mat frame = NativeResources.newMat();
+
+        try {
+            for (CaptureProfile candidate : candidates) {
+                Measurement result = measure(camera, candidate, frame);
+                if (result == null) {
+                    continue;
+                }
+
+                boolean meetsTarget = result.fps >= targetFps * TARGET_TOLERANCE;
+                double cost = result.cpuMillisPerFrame + (Double.isNaN(result.ageMillis) ? 0 : result.ageMillis);
+
+                // A profile reaching the target always beats one that does not
+                boolean better = meetsTarget
+                    ? !bestMeetsTarget || cost < bestCost * (1 - MIN_IMPROVEMENT)
+                    : !bestMeetsTarget && result.fps > bestFps;
+
+                if (best == null || better) {
+                    best = candidate;
+                    bestCost = cost;
+                    bestMeetsTarget = meetsTarget;
+                    bestFps = result.fps;
+                }
+            }
+        } finally {
+            NativeResources.release(frame);
+        }
+
+        if (best == null) {
+            System.out.println("No capture profile could be measured; keeping the driver's defaults");
+            return null;
+        }
+
+        best.apply(camera);
+        System.out.printf("Selected capture profile %s (%s the %.0f fps target)%n",
+            best, bestMeetsTarget ? "meets" : "misses", targetFps);
+        return best;
+    }
+
+    /**
+     * Applies a profile and measures the frame rate, the read latency, the CPU time
+     * per frame and the age of the frames it delivers.
+     *
+     * @param camera the opened camera
+     * @param profile the profile to measure
+     * @param frame the Mat to read frames into
+     * @return the measurement, or null if the camera failed to deliver frames
+     */
+    private Measurement measure(VideoCapture camera, CaptureProfile profile, Mat frame) {
+        profile.apply(camera);
+
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            if (!camera.read(frame)) {
+                System.out.println("Skipping capture profile " + profile + ": no frames");
+                return null;
+            }
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        LatencyHistogram readLatency = new LatencyHistogram();
+        LatencyHistogram age = new LatencyHistogram();
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        long start = System.nanoTime();
+
+        for (int i = 0; i < MEASURED_FRAMES; i++) {
+            long readStart = System.nanoTime();
+            if (!camera.read(frame)) {
+                System.out.println("Skipping capture profile " + profile + ": frames stopped");
+                return null;
+            }
+            long readEnd = System.nanoTime();
+            readLatency.record(readEnd - readStart);
+
+            // V4L2 stamps each frame with the monotonic clock System.nanoTime() uses on Linux
+            double captureMillis = camera.get(Videoio.CAP_PROP_POS_MSEC);
+            long ageNanos = readEnd - (long) (captureMillis * 1_000_000);
+            if (captureMillis > 0 && ageNanos >= 0 && ageNanos < TimeUnit.MILLISECONDS.toNanos(MAX_PLAUSIBLE_AGE_MILLIS)) {
+                age.record(ageNanos);
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Measurement result = new Measurement();
+        result.fps = MEASURED_FRAMES / seconds;
+        result.cpuMillisPerFrame = (threads.getCurrentThreadCpuTime() - cpuStart) / 1e6 / MEASURED_FRAMES;
+        result.ageMillis = age.getCount() == MEASURED_FRAMES ? age.getPercentile(50, TimeUnit.MILLISECONDS) : Double.NaN;
+
+        System.out.printf("Measured capture profile %s (delivers %s): %.1f fps, read p50 %.2fms, cpu %.2fms/frame, age p50 %s%n",
+            profile, CaptureProfile.getNegotiated(camera), result.fps, readLatency.getPercentile(50, TimeUnit.MILLISECONDS),
+            result.cpuMillisPerFrame, Double.isNaN(result.ageMillis) ? "n/a" : String.format("%.2fms", result.ageMillis));
+        return result;
+    }
+
+    /**
+     * What measure() found out about a profile.
+     */
+    private static class Measurement {
+
+        /** The frames delivered per second */
+        private double fps;
+
+        /** The CPU time the reading thread spent per frame, in milliseconds */
+        private double cpuMillisPerFrame;
+
+        /** The median time between capture and read in milliseconds, or NaN if the driver has no timestamps */
+        private double ageMillis;
+
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.codedotorg.modelmanager;
+
+import org.opencv.core.Mat;
+
+public class Frame {
+
+    /** The preallocated Mat holding the pixels of the frame */
+    private final Mat mat;
+
+    /** The sequence number assigned when the frame was published */
+    private long sequence;
+
+    /** The System.nanoTime() at which the frame was published */
+    private long captureNanos;
+
+    /** The index of the frame in the FrameRecorder, or -1 if it is not being recorded */
+    private int recordIndex;
+
+    /**
+     * Constructs a new Frame with an empty preallocated Mat.
+     */
+    public Frame() {
+        mat = NativeResources.newMat();
+        sequence = -1;
+        captureNanos = 0;
+        recordIndex = -1;
+    }
+
+    /**
+     * Returns the Mat holding the pixels of the frame.
+     *
+     * @return the Mat of the frame
+     */
+    public Mat getMat() {
+        return mat;
+    }
+
+    /**
+     * Returns the sequence number of the frame.
+     *
+     * @return the sequence number, or -1 if the frame was never published
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the System.nanoTime() at which the frame was published.
+     *
+     * @return the capture time in nanoseconds
+     */
+    public long getCaptureNanos() {
+        return captureNanos;
+    }
+
+    /**
+     * Stamps the frame with its sequence number and capture time.
+     *
+     * @param sequence the sequence number of the frame
+     * @param captureNanos the capture time in nanoseconds
+     */
+    void stamp(long sequence, long captureNanos) {
+        this.sequence = sequence;
+        this.captureNanos = captureNanos;
+    }
+
+    /**
+     * Returns the index of the frame in the FrameRecorder, so its prediction can be recorded too.
+     *
+     * @return the index in the recording, or -1 if the frame is not being recorded
+     */
+    int getRecordIndex() {
+        return recordIndex;
+    }
+
+    /**
+     * Sets the index of the frame in the FrameRecorder.
+     *
+     * @param recordIndex the index in the recording, or -1 if the frame is not being recorded
+     */
+    void setRecordIndex(int recordIndex) {
+        this.recordIndex = recordIndex;
+    }
+
+    /**
+     * Releases the native memory held by the frame.
+     */
+    void release() {
+        NativeResources.release(mat);
+    }
+
+}
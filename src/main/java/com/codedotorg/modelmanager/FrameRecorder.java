@@ -0,0 +1,373 @@
+package com.codedotorg.modelmanager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import org.opencv.core.Mat;
+
+public class FrameRecorder implements AutoCloseable {
+
+    /** The system property holding the file to record the camera frames to */
+    public static final String RECORD_PROPERTY = "guessinggame.record";
+
+    /** The system property holding the number of frames to make room for */
+    public static final String RECORD_FRAMES_PROPERTY = "guessinggame.record.frames";
+
+    /** The number of frames made room for when RECORD_FRAMES_PROPERTY is not set (a minute at 30 fps) */
+    public static final int DEFAULT_CAPACITY = 1800;
+
+    /** Identifies a recording file ("GGFR") */
+    static final int MAGIC = 0x47474652;
+
+    /** The version of the file format */
+    static final int VERSION = 1;
+
+    /** The size of the file header in bytes */
+    static final int HEADER_BYTES = 64;
+
+    /** The size of the per-frame header at the start of each slot in bytes */
+    static final int SLOT_HEADER_BYTES = 32;
+
+    /** The smallest page size of the supported platforms; writing every PAGE_BYTES-th byte touches every page */
+    private static final int PAGE_BYTES = 4096;
+
+    /** The bytes preallocated per turn of the lock, short enough that the capture thread never waits long */
+    private static final int PREALLOCATE_CHUNK_BYTES = 64 * 1024;
+
+    /** The offsets of the fields in the file header */
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int WIDTH_OFFSET = 8;
+    static final int HEIGHT_OFFSET = 12;
+    static final int TYPE_OFFSET = 16;
+    static final int FRAME_BYTES_OFFSET = 20;
+    static final int SLOT_BYTES_OFFSET = 24;
+    static final int CAPACITY_OFFSET = 28;
+    static final int COUNT_OFFSET = 32;
+    static final int START_MILLIS_OFFSET = 40;
+
+    /** The offsets of the fields in each slot header */
+    static final int CAPTURE_NANOS_OFFSET = 0;
+    static final int CLASS_INDEX_OFFSET = 8;
+    static final int CONFIDENCE_OFFSET = 12;
+
+    /** The file the frames are recorded to */
+    private final Path path;
+
+    /** The number of frames to make room for, lowered if the file would not fit in one mapping */
+    private int capacity;
+
+    /** The file mapped into memory, created when the first frame arrives and its size is known */
+    private MappedByteBuffer mapped;
+
+    /** A view of the mapped file positioned on the pixels of each slot in turn, so no buffer is created per frame */
+    private ByteBuffer slotView;
+
+    /** Holds the pixels of the frame being recorded, reused for every frame */
+    private byte[] pixels;
+
+    /** Keeps the preallocating thread out of the slots the capture thread has claimed */
+    private final Object preallocationLock = new Object();
+
+    /** The end of the last slot claimed by the capture thread; the preallocating thread only touches pages after it */
+    private long claimedBytes;
+
+    /** The channel the file was mapped through */
+    private FileChannel channel;
+
+    /** The width of the recorded frames */
+    private int width;
+
+    /** The height of the recorded frames */
+    private int height;
+
+    /** The OpenCV type of the recorded frames */
+    private int type;
+
+    /** The size of the pixels of one frame in bytes */
+    private int frameBytes;
+
+    /** The size of one slot (slot header and pixels) in bytes */
+    private int slotBytes;
+
+    /** The number of frames recorded so far */
+    private int count;
+
+    /** The System.nanoTime() of the first recorded frame, which the capture times are relative to */
+    private long firstCaptureNanos;
+
+    /** The number of frames not recorded because the file was full or their size differed */
+    private long skippedCount;
+
+    /** Whether the recorder failed or was closed and ignores further frames */
+    private volatile boolean stopped;
+
+    /**
+     * Constructs a new FrameRecorder that records up to the given number of frames
+     * to a file. The file is created and preallocated when the first frame arrives,
+     * since its size depends on the size of the frames.
+     *
+     * @param path the file to record to, replaced if it exists
+     * @param capacity the number of frames to make room for
+     */
+    public FrameRecorder(Path path, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The recorder needs room for at least one frame, got " + capacity);
+        }
+
+        this.path = path;
+        this.capacity = capacity;
+        count = 0;
+        skippedCount = 0;
+        stopped = false;
+    }
+
+    /**
+     * Creates a recorder from the RECORD_PROPERTY and RECORD_FRAMES_PROPERTY system properties.
+     *
+     * @return the recorder, or null if RECORD_PROPERTY is not set
+     */
+    public static FrameRecorder fromSystemProperties() {
+        String file = System.getProperty(RECORD_PROPERTY);
+
+        if (file == null || file.isEmpty()) {
+            return null;
+        }
+
+        return new FrameRecorder(Paths.get(file),
+            Integer.getInteger(RECORD_FRAMES_PROPERTY, DEFAULT_CAPACITY));
+    }
+
+    /**
+     * Appends a frame to the file. The pixels are copied into the mapped file through
+     * a reused array and view, so recording allocates nothing per frame and never waits
+     * for the disk; the operating system writes the pages back in the background.
+     * Only one thread may record frames, but another thread may add the predictions.
+     *
+     * @param frame the frame to record
+     * @param captureNanos the System.nanoTime() at which the frame was captured
+     * @return the index of the frame in the recording, to pass to recordPrediction, or -1 if it was not recorded
+     */
+    public int record(Mat frame, long captureNanos) {
+        if (stopped) {
+            return -1;
+        }
+
+        // Create the file with the size of the first frame
+        if (mapped == null && !map(frame, captureNanos)) {
+            return -1;
+        }
+
+        if (count >= capacity || frame.cols() != width || frame.rows() != height || frame.type() != type) {
+            skippedCount++;
+            return -1;
+        }
+
+        // Claim the slot, so the preallocating thread never zeroes a page written here
+        int slot = HEADER_BYTES + count * slotBytes;
+        synchronized (preallocationLock) {
+            claimedBytes = slot + slotBytes;
+        }
+
+        // Write the slot header; the prediction is not known yet
+        mapped.putLong(slot + CAPTURE_NANOS_OFFSET, captureNanos - firstCaptureNanos);
+        mapped.putInt(slot + CLASS_INDEX_OFFSET, -1);
+        mapped.putFloat(slot + CONFIDENCE_OFFSET, Float.NaN);
+
+        // Copy the pixels out of the Mat and into the slot through the reused view
+        int start = slot + SLOT_HEADER_BYTES;
+        frame.get(0, 0, pixels);
+        slotView.limit(start + frameBytes).position(start);
+        slotView.put(pixels);
+
+        // Count the frame in the header last, so a crash never leaves a half-written frame counted
+        int index = count;
+        count++;
+        mapped.putInt(COUNT_OFFSET, count);
+
+        if (count == capacity) {
+            System.out.println("Frame recording full after " + capacity + " frames: " + path);
+        }
+
+        return index;
+    }
+
+    /**
+     * Stores the prediction made for a recorded frame.
+     *
+     * @param index the index returned by record
+     * @param prediction the prediction made for the frame
+     */
+    public void recordPrediction(int index, Prediction prediction) {
+        if (stopped || index < 0 || mapped == null) {
+            return;
+        }
+
+        int slot = HEADER_BYTES + index * slotBytes;
+        mapped.putInt(slot + CLASS_INDEX_OFFSET, prediction.getClassIndex());
+        mapped.putFloat(slot + CONFIDENCE_OFFSET, prediction.getConfidence());
+    }
+
+    /**
+     * Creates and maps the file for frames like the given one, writes the file
+     * header and starts preallocating the pages in the background.
+     *
+     * @param frame the first frame to record
+     * @param captureNanos the System.nanoTime() at which the frame was captured
+     * @return true if the file was mapped, false if recording stopped
+     */
+    private boolean map(Mat frame, long captureNanos) {
+        width = frame.cols();
+        height = frame.rows();
+        type = frame.type();
+        long pixelBytes = frame.total() * frame.elemSize();
+
+        // One mapping is limited to 2 GB, so make room for fewer frames if needed
+        long maxCapacity = (Integer.MAX_VALUE - HEADER_BYTES) / (SLOT_HEADER_BYTES + pixelBytes);
+        if (maxCapacity < 1) {
+            System.err.println("Frames of " + width + "x" + height + " are too large to record");
+            stopped = true;
+            return false;
+        }
+        if (capacity > maxCapacity) {
+            System.out.println("Recording at most " + maxCapacity + " frames of " + width + "x" + height
+                + " instead of " + capacity + " so the file fits in one mapping");
+            capacity = (int) maxCapacity;
+        }
+
+        frameBytes = (int) pixelBytes;
+        slotBytes = SLOT_HEADER_BYTES + frameBytes;
+        long fileBytes = HEADER_BYTES + (long) capacity * slotBytes;
+
+        try {
+            // Size the whole file up front so recording never grows it
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileBytes);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            slotView = mapped.duplicate();
+            pixels = new byte[frameBytes];
+        } catch (IOException e) {
+            System.err.println("Failed to create the frame recording " + path);
+            e.printStackTrace();
+            stopped = true;
+            closeChannel();
+            return false;
+        }
+
+        mapped.putInt(MAGIC_OFFSET, MAGIC);
+        mapped.putInt(VERSION_OFFSET, VERSION);
+        mapped.putInt(WIDTH_OFFSET, width);
+        mapped.putInt(HEIGHT_OFFSET, height);
+        mapped.putInt(TYPE_OFFSET, type);
+        mapped.putInt(FRAME_BYTES_OFFSET, frameBytes);
+        mapped.putInt(SLOT_BYTES_OFFSET, slotBytes);
+        mapped.putInt(CAPACITY_OFFSET, capacity);
+        mapped.putInt(COUNT_OFFSET, 0);
+        mapped.putLong(START_MILLIS_OFFSET, System.currentTimeMillis());
+        firstCaptureNanos = captureNanos;
+
+        System.out.println("Recording up to " + capacity + " frames of " + width + "x" + height + " to " + path);
+
+        // The mapping only sized a sparse file; allocate its pages ahead of the capture thread
+        claimedBytes = HEADER_BYTES;
+        MappedByteBuffer target = mapped;
+        Thread preallocator = new Thread(() -> preallocate(target, fileBytes), "frame-recorder-preallocate");
+        preallocator.setDaemon(true);
+        preallocator.start();
+        return true;
+    }
+
+    /**
+     * Writes a zero into every page of the file that the capture thread has not
+     * claimed yet, so the pages are allocated before the frames reach them and
+     * recording does not take a page fault per new page. Runs on its own thread,
+     * so a large file does not hold up the first frame.
+     *
+     * @param target the mapped file
+     * @param fileBytes the size of the file in bytes
+     */
+    private void preallocate(MappedByteBuffer target, long fileBytes) {
+        long start = System.nanoTime();
+
+        for (long chunk = 0; chunk < fileBytes && !stopped; chunk += PREALLOCATE_CHUNK_BYTES) {
+            synchronized (preallocationLock) {
+                // Start at the first whole page after the claimed slots, which may already hold frames
+                long from = Math.max(chunk, (claimedBytes + PAGE_BYTES - 1) / PAGE_BYTES * PAGE_BYTES);
+                long to = Math.min(chunk + PREALLOCATE_CHUNK_BYTES, fileBytes);
+
+                for (long offset = from; offset < to; offset += PAGE_BYTES) {
+                    target.put((int) offset, (byte) 0);
+                }
+            }
+        }
+
+        System.out.printf("Preallocated %.1fMB for the frame recording in %.0fms%n",
+            fileBytes / 1048576.0, (System.nanoTime() - start) / 1e6);
+    }
+
+    /**
+     * Returns the file the frames are recorded to.
+     *
+     * @return the path of the recording
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the number of frames recorded so far.
+     *
+     * @return the number of recorded frames
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the number of frames not recorded because the file was full or their size differed.
+     *
+     * @return the number of skipped frames
+     */
+    public long getSkippedCount() {
+        return skippedCount;
+    }
+
+    /**
+     * Flushes the recorded frames to the disk and closes the file. Frames recorded
+     * afterwards are ignored. Call only after the capture has stopped.
+     */
+    @Override
+    public void close() {
+        stopped = true;
+
+        if (mapped != null) {
+            mapped.force();
+            System.out.println("Recorded " + count + " frames to " + path
+                + (skippedCount > 0 ? " (" + skippedCount + " skipped)" : ""));
+        }
+
+        closeChannel();
+    }
+
+    /**
+     * Closes the channel of the file. The mapping stays valid until it is garbage collected.
+     */
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close the frame recording " + path);
+            }
+            channel = null;
+        }
+    }
+
+}
@@ -0,0 +1,222 @@
+package com.codedotorg.modelmanager;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+public class FrameReplayer implements FrameSource {
+
+    /** The recording written by a FrameRecorder */
+    private final Path path;
+
+    /** Whether to wait between frames as long as the camera did, instead of replaying at maximum speed */
+    private final boolean realTime;
+
+    /** Whether to start again from the first frame after the last one */
+    private final boolean loop;
+
+    /** The recording mapped into memory, read-only */
+    private MappedByteBuffer mapped;
+
+    /** The width of the recorded frames */
+    private int width;
+
+    /** The height of the recorded frames */
+    private int height;
+
+    /** The OpenCV type of the recorded frames */
+    private int type;
+
+    /** The size of the pixels of one frame in bytes */
+    private int frameBytes;
+
+    /** The size of one slot (slot header and pixels) in bytes */
+    private int slotBytes;
+
+    /** The number of frames in the recording */
+    private int count;
+
+    /** The index of the next frame to read */
+    private int next;
+
+    /** The System.nanoTime() the replay of the first frame started at, for pacing */
+    private long replayStartNanos;
+
+    /** The capture time of the last frame read, relative to the first recorded frame */
+    private long recordedCaptureNanos;
+
+    /** The class index predicted when the last frame read was recorded, or -1 */
+    private int recordedClassIndex;
+
+    /** The confidence predicted when the last frame read was recorded, or NaN */
+    private float recordedConfidence;
+
+    /**
+     * Constructs a new FrameReplayer for a recording written by a FrameRecorder.
+     *
+     * @param path the recording to replay
+     * @param realTime whether to replay at the pace the frames were captured at, or at maximum speed
+     * @param loop whether to start again from the first frame after the last one
+     */
+    public FrameReplayer(Path path, boolean realTime, boolean loop) {
+        this.path = path;
+        this.realTime = realTime;
+        this.loop = loop;
+        next = 0;
+        recordedClassIndex = -1;
+        recordedConfidence = Float.NaN;
+    }
+
+    /**
+     * Maps the recording into memory and reads its header.
+     *
+     * @return true if the recording holds at least one frame, false otherwise
+     */
+    @Override
+    public boolean open() {
+        // Map read-only, so recordings on read-only media or with read-only permissions replay too
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+        } catch (IOException e) {
+            System.err.println("Failed to open the frame recording " + path);
+            e.printStackTrace();
+            return false;
+        }
+
+        if (mapped.capacity() < FrameRecorder.HEADER_BYTES
+            || mapped.getInt(FrameRecorder.MAGIC_OFFSET) != FrameRecorder.MAGIC
+            || mapped.getInt(FrameRecorder.VERSION_OFFSET) != FrameRecorder.VERSION) {
+            System.err.println(path + " is not a frame recording");
+            return false;
+        }
+
+        width = mapped.getInt(FrameRecorder.WIDTH_OFFSET);
+        height = mapped.getInt(FrameRecorder.HEIGHT_OFFSET);
+        type = mapped.getInt(FrameRecorder.TYPE_OFFSET);
+        frameBytes = mapped.getInt(FrameRecorder.FRAME_BYTES_OFFSET);
+        slotBytes = mapped.getInt(FrameRecorder.SLOT_BYTES_OFFSET);
+        count = mapped.getInt(FrameRecorder.COUNT_OFFSET);
+        next = 0;
+
+        // Reject a truncated or corrupt recording here rather than reading past the mapping later
+        if (width <= 0 || height <= 0 || count < 0
+            || frameBytes != (long) width * height * CvType.ELEM_SIZE(type)
+            || slotBytes < FrameRecorder.SLOT_HEADER_BYTES + frameBytes
+            || FrameRecorder.HEADER_BYTES + (long) count * slotBytes > mapped.capacity()) {
+            System.err.println(path + " is truncated or corrupt");
+            mapped = null;
+            count = 0;
+            return false;
+        }
+
+        return count > 0;
+    }
+
+    /**
+     * Copies the next recorded frame into the given Mat. The Mat owns its pixels,
+     * so the caller may write into it, and it stays valid after the next read.
+     *
+     * @param frame the Mat to copy the frame into, reallocated only if its size or type differs
+     * @return true if a frame was read, false at the end of a recording that does not loop
+     */
+    @Override
+    public boolean read(Mat frame) {
+        if (next >= count) {
+            if (!loop) {
+                return false;
+            }
+            next = 0;
+        }
+
+        int slot = FrameRecorder.HEADER_BYTES + next * slotBytes;
+        recordedCaptureNanos = mapped.getLong(slot + FrameRecorder.CAPTURE_NANOS_OFFSET);
+        recordedClassIndex = mapped.getInt(slot + FrameRecorder.CLASS_INDEX_OFFSET);
+        recordedConfidence = mapped.getFloat(slot + FrameRecorder.CONFIDENCE_OFFSET);
+
+        // Wait until the frame is as far from the first one as it was when it was captured
+        if (realTime) {
+            if (next == 0) {
+                replayStartNanos = System.nanoTime();
+            }
+            long waitNanos = replayStartNanos + recordedCaptureNanos - System.nanoTime();
+            if (waitNanos > 0) {
+                try {
+                    Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+
+        // Wrap the slot's pixels where they are mapped and copy them once, straight into the caller's Mat
+        Mat slotPixels = NativeResources.newMat(height, width, type,
+            mapped.slice(slot + FrameRecorder.SLOT_HEADER_BYTES, frameBytes));
+        try {
+            slotPixels.copyTo(frame);
+        } finally {
+            NativeResources.release(slotPixels);
+        }
+
+        next++;
+        return true;
+    }
+
+    /**
+     * Returns the number of frames in the recording.
+     *
+     * @return the number of recorded frames
+     */
+    public int getFrameCount() {
+        return count;
+    }
+
+    /**
+     * Returns when the last frame read was captured, relative to the first recorded frame.
+     *
+     * @return the capture time in nanoseconds
+     */
+    public long getRecordedCaptureNanos() {
+        return recordedCaptureNanos;
+    }
+
+    /**
+     * Returns the class index the model predicted when the last frame read was recorded.
+     *
+     * @return the recorded class index, or -1 if no prediction was recorded for the frame
+     */
+    public int getRecordedClassIndex() {
+        return recordedClassIndex;
+    }
+
+    /**
+     * Returns the confidence the model predicted when the last frame read was recorded.
+     *
+     * @return the recorded confidence, or NaN if no prediction was recorded for the frame
+     */
+    public float getRecordedConfidence() {
+        return recordedConfidence;
+    }
+
+    @Override
+    public String getName() {
+        return (realTime ? "replay-realtime:" : "replay:") + path;
+    }
+
+    /**
+     * Drops the mapping, which is unmapped once it is garbage collected. The frames
+     * already read stay valid, since they were copied out of the recording.
+     */
+    @Override
+    public void close() {
+        mapped = null;
+    }
+
+}
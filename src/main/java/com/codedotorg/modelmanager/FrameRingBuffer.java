@@ -0,0 +1,246 @@
+package com.codedotorg.modelmanager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class FrameRingBuffer {
+
+    /** The preallocated frames, reused for every capture */
+    private final Frame[] slots;
+
+    /** Whether each slot is currently being read by a consumer */
+    private final boolean[] inUse;
+
+    /** The index of the newest published frame not yet taken, or -1 if there is none */
+    private int latest;
+
+    /** The index of the slot the producer is currently writing into, or -1 */
+    private int writing;
+
+    /** The slot the producer will try next */
+    private int nextWrite;
+
+    /** Guards the slot bookkeeping */
+    private final ReentrantLock lock;
+
+    /** Signalled whenever a new frame is published or the buffer is closed */
+    private final Condition frameAvailable;
+
+    /** Whether the buffer has been closed */
+    private boolean closed;
+
+    /** The number of frames published by the producer */
+    private long capturedCount;
+
+    /** The number of published frames replaced before any consumer took them */
+    private long droppedCount;
+
+    /** The number of frames taken by consumers for inference */
+    private long inferredCount;
+
+    /**
+     * Constructs a new FrameRingBuffer with the given number of preallocated frames.
+     * One slot is written by the producer, one holds the latest frame, and the rest
+     * can be held by consumers, so the capacity must be at least 3.
+     *
+     * @param capacity the number of frames to preallocate
+     */
+    public FrameRingBuffer(int capacity) {
+        if (capacity < 3) {
+            throw new IllegalArgumentException("FrameRingBuffer needs at least 3 slots, got " + capacity);
+        }
+
+        slots = new Frame[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Frame();
+        }
+
+        inUse = new boolean[capacity];
+        latest = -1;
+        writing = -1;
+        nextWrite = 0;
+        lock = new ReentrantLock();
+        frameAvailable = lock.newCondition();
+        closed = false;
+    }
+
+    /**
+     * Returns a free frame for the producer to write into. The frame is neither the
+     * latest published frame nor one that a consumer is reading. Calling this again
+     * without publishing returns the same frame.
+     *
+     * @return the frame to write the next capture into
+     */
+    public Frame beginWrite() {
+        lock.lock();
+        try {
+            if (writing >= 0) {
+                return slots[writing];
+            }
+
+            for (int i = 0; i < slots.length; i++) {
+                int index = (nextWrite + i) % slots.length;
+
+                if (index != latest && !inUse[index]) {
+                    writing = index;
+                    nextWrite = (index + 1) % slots.length;
+                    return slots[index];
+                }
+            }
+
+            throw new IllegalStateException("No free frame: too many consumers for " + slots.length + " slots");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Publishes the frame returned by beginWrite() as the latest frame. If the
+     * previous latest frame was never taken, it is dropped instead of queued.
+     */
+    public void publish() {
+        lock.lock();
+        try {
+            if (writing < 0) {
+                throw new IllegalStateException("publish() called without beginWrite()");
+            }
+
+            if (latest >= 0) {
+                droppedCount++;
+                PipelineMetrics.increment(PipelineCounter.FRAMES_DROPPED);
+            }
+
+            slots[writing].stamp(capturedCount, System.nanoTime());
+            capturedCount++;
+            PipelineMetrics.increment(PipelineCounter.FRAMES_CAPTURED);
+
+            latest = writing;
+            writing = -1;
+            frameAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for the newest published frame and hands it to the caller, who must
+     * pass it back to release() when done reading it.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return the newest frame, or null if none arrived in time or the buffer was closed
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public Frame takeLatest(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+
+        lock.lock();
+        try {
+            while (latest < 0 && !closed) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = frameAvailable.awaitNanos(nanos);
+            }
+
+            if (closed) {
+                return null;
+            }
+
+            int index = latest;
+            latest = -1;
+            inUse[index] = true;
+            inferredCount++;
+            PipelineMetrics.increment(PipelineCounter.FRAMES_INFERRED);
+            return slots[index];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a frame taken with takeLatest() so that the producer can reuse it.
+     *
+     * @param frame the frame to release
+     */
+    public void release(Frame frame) {
+        lock.lock();
+        try {
+            for (int i = 0; i < slots.length; i++) {
+                if (slots[i] == frame) {
+                    inUse[i] = false;
+                    return;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the buffer, waking up any waiting consumers.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            frameAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the native memory of every preallocated frame. Must only be called
+     * after the producer and all consumers have stopped using the buffer.
+     */
+    public void releaseFrames() {
+        for (Frame frame : slots) {
+            frame.release();
+        }
+    }
+
+    /**
+     * Returns the number of frames published by the producer.
+     *
+     * @return the number of captured frames
+     */
+    public long getCapturedCount() {
+        lock.lock();
+        try {
+            return capturedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of frames replaced by a newer frame before being taken.
+     *
+     * @return the number of dropped frames
+     */
+    public long getDroppedCount() {
+        lock.lock();
+        try {
+            return droppedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of frames taken by consumers for inference.
+     *
+     * @return the number of inferred frames
+     */
+    public long getInferredCount() {
+        lock.lock();
+        try {
+            return inferredCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
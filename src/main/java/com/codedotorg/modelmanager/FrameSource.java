@@ -0,0 +1,34 @@
+package com.codedotorg.modelmanager;
+
+import org.opencv.core.Mat;
+
+public interface FrameSource extends AutoCloseable {
+
+    /**
+     * Opens the source so frames can be read.
+     *
+     * @return true if the source was opened, false otherwise
+     */
+    boolean open();
+
+    /**
+     * Reads the next frame into the given Mat, reusing its memory when the size matches.
+     *
+     * @param frame the Mat to read the frame into
+     * @return true if a frame was read, false if the source has no more frames or failed
+     */
+    boolean read(Mat frame);
+
+    /**
+     * Returns a short description of the source for logs and reports.
+     *
+     * @return the name of the source
+     */
+    String getName();
+
+    /**
+     * Releases the resources held by the source.
+     */
+    void close();
+
+}
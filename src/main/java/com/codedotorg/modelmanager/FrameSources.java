@@ -0,0 +1,54 @@
+package com.codedotorg.modelmanager;
+
+import java.nio.file.Paths;
+
+public final class FrameSources {
+
+    /**
+     * FrameSources only has static members.
+     */
+    private FrameSources() {
+    }
+
+    /**
+     * Creates a frame source from a specification such as "camera:0", "camera:0:auto",
+     * "camera:0:640x480@30/MJPG/b1", "video:clip.mp4", "images:frames/", "synthetic:640x480"
+     * or "replay:session.frames". Video and image sources loop so a fixed number of
+     * frames can be pushed through a short clip.
+     * Recordings replay once, at maximum speed with "replay:" or at the pace they
+     * were captured at with "replay-realtime:", so --frames=-1 replays the whole session.
+     *
+     * @param spec the source specification
+     * @return the frame source
+     */
+    public static FrameSource create(String spec) {
+        String type = spec.contains(":") ? spec.substring(0, spec.indexOf(':')) : spec;
+        String argument = spec.contains(":") ? spec.substring(spec.indexOf(':') + 1) : "";
+
+        switch (type) {
+            case "camera":
+                // An optional profile follows the index, otherwise -Dguessinggame.capture applies
+                String[] camera = argument.split(":", 2);
+                int cameraIndex = camera[0].isEmpty() ? 0 : Integer.parseInt(camera[0]);
+                if (camera.length == 1) {
+                    return CameraFrameSource.fromSystemProperties(cameraIndex);
+                }
+                return CameraFrameSource.fromSpec(cameraIndex, camera[1], Double.parseDouble(System.getProperty(
+                    CameraFrameSource.TARGET_FPS_PROPERTY, String.valueOf(CaptureProfileSelector.DEFAULT_TARGET_FPS))));
+            case "video":
+                return new VideoFileFrameSource(argument, true);
+            case "images":
+                return new ImageDirectoryFrameSource(Paths.get(argument), true);
+            case "synthetic":
+                String[] size = (argument.isEmpty() ? "640x480" : argument).split("x");
+                return new SyntheticFrameSource(Integer.parseInt(size[0]), Integer.parseInt(size[1]), -1, 42);
+            case "replay":
+                return new FrameReplayer(Paths.get(argument), false, false);
+            case "replay-realtime":
+                return new FrameReplayer(Paths.get(argument), true, false);
+            default:
+                throw new IllegalArgumentException("Unknown frame source: " + spec);
+        }
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.codedotorg.modelmanager;
+
+import java.util.List;
+
+public enum Gesture {
+
+    /** The player says the number is lower than the guess */
+    THUMBS_DOWN("thumbsdown"),
+
+    /** The player says the number is higher than the guess */
+    THUMBS_UP("thumbsup"),
+
+    /** The player says the guess is correct */
+    STOP("stop"),
+
+    /** The player is not answering */
+    NEUTRAL("neutral"),
+
+    /** A label the game does not know */
+    UNKNOWN("unknown");
+
+    /** The gesture's name in labels.txt, without the leading class number */
+    private final String labelName;
+
+    /**
+     * Constructs a Gesture with its name in labels.txt.
+     *
+     * @param labelName the name without the leading class number
+     */
+    Gesture(String labelName) {
+        this.labelName = labelName;
+    }
+
+    /**
+     * Returns the gesture's name in labels.txt, such as "thumbsup".
+     *
+     * @return the name without the leading class number
+     */
+    public String getLabelName() {
+        return labelName;
+    }
+
+    /**
+     * Parses a line of labels.txt, such as "1 thumbsup".
+     *
+     * @param label the label with or without the leading class number
+     * @return the matching gesture, or UNKNOWN if the name is not a known gesture
+     */
+    public static Gesture fromLabel(String label) {
+        // Get the label without the leading number
+        String name = label.substring(label.indexOf(" ") + 1).trim();
+
+        for (Gesture gesture : values()) {
+            if (gesture != UNKNOWN && gesture.labelName.equals(name)) {
+                return gesture;
+            }
+        }
+
+        return UNKNOWN;
+    }
+
+    /**
+     * Parses every label once, so predictions can look their gesture up by class index.
+     *
+     * @param labels the lines of labels.txt, in class order
+     * @return the gesture of each class
+     */
+    public static Gesture[] fromLabels(List<String> labels) {
+        Gesture[] gestures = new Gesture[labels.size()];
+
+        for (int i = 0; i < gestures.length; i++) {
+            gestures[i] = fromLabel(labels.get(i));
+        }
+
+        return gestures;
+    }
+
+}
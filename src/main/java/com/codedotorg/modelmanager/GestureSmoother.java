@@ -0,0 +1,184 @@
+package com.codedotorg.modelmanager;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public class GestureSmoother {
+
+    /** The default weight of the newest probabilities in the moving average */
+    public static final float DEFAULT_ALPHA = 0.4f;
+
+    /** The default smoothed probability a gesture needs before it can be committed */
+    public static final float DEFAULT_COMMIT_CONFIDENCE = 0.8f;
+
+    /** The default smoothed probability below which a committed gesture is released */
+    public static final float DEFAULT_RELEASE_CONFIDENCE = 0.5f;
+
+    /** The default time a gesture must stay above the commit confidence */
+    public static final long DEFAULT_HOLD_MILLIS = 300;
+
+    /** The class labels, in the order of the probabilities */
+    private final List<String> labels;
+
+    /** The gesture of each class, parsed once from the labels */
+    private final Gesture[] gestures;
+
+    /** The weight of the newest probabilities in the moving average */
+    private final float alpha;
+
+    /** The smoothed probability a gesture needs before it can be committed */
+    private final float commitConfidence;
+
+    /** The smoothed probability below which a committed gesture is released */
+    private final float releaseConfidence;
+
+    /** The time a gesture must stay above the commit confidence, in nanoseconds */
+    private final long holdNanos;
+
+    /** The exponential moving average of the probabilities */
+    private float[] smoothed;
+
+    /** The gesture currently above the commit confidence, or -1 */
+    private int candidate;
+
+    /** When the candidate first rose above the commit confidence */
+    private long candidateSinceNanos;
+
+    /** The gesture that was committed and has not been released yet, or -1 */
+    private int committed;
+
+    /** Called with the smoothed prediction whenever a gesture is committed */
+    private volatile Consumer<Prediction> listener;
+
+    /**
+     * Constructs a new GestureSmoother with the default settings.
+     *
+     * @param labels the class labels, in the order of the probabilities
+     */
+    public GestureSmoother(List<String> labels) {
+        this(labels, DEFAULT_ALPHA, DEFAULT_COMMIT_CONFIDENCE, DEFAULT_RELEASE_CONFIDENCE, DEFAULT_HOLD_MILLIS);
+    }
+
+    /**
+     * Constructs a new GestureSmoother. A gesture becomes a candidate when its smoothed
+     * probability reaches commitConfidence and stays one while it leads and remains at
+     * or above releaseConfidence. It is committed once it has been a candidate for
+     * holdMillis and is at or above commitConfidence. The same
+     * gesture can only be committed again after it has been released, either by
+     * dropping below releaseConfidence or by another gesture taking over.
+     *
+     * @param labels the class labels, in the order of the probabilities
+     * @param alpha the weight of the newest probabilities in the moving average (0 to 1)
+     * @param commitConfidence the smoothed probability needed to commit a gesture
+     * @param releaseConfidence the smoothed probability below which a committed gesture is released
+     * @param holdMillis how long a gesture must stay above the commit confidence
+     */
+    public GestureSmoother(List<String> labels, float alpha, float commitConfidence, float releaseConfidence, long holdMillis) {
+        if (releaseConfidence > commitConfidence) {
+            throw new IllegalArgumentException("releaseConfidence must not be above commitConfidence");
+        }
+
+        this.labels = labels;
+        gestures = Gesture.fromLabels(labels);
+        this.alpha = alpha;
+        this.commitConfidence = commitConfidence;
+        this.releaseConfidence = releaseConfidence;
+        this.holdNanos = holdMillis * 1_000_000;
+        committed = -1;
+        reset();
+    }
+
+    /**
+     * Sets the listener called whenever a gesture is committed. The listener runs
+     * on the thread that calls update(), so UI listeners should use Platform.runLater.
+     *
+     * @param listener the listener, or null to remove it
+     */
+    public void setListener(Consumer<Prediction> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Adds the probabilities of a prediction to the moving average and commits
+     * the leading gesture if it has been stable for long enough.
+     *
+     * @param prediction the prediction of the frame, which must have scores
+     * @param timestampNanos the System.nanoTime() at which the frame was captured
+     */
+    public void update(Prediction prediction, long timestampNanos) {
+        // The scores are only read, so the shared prediction does not need to be copied
+        update(prediction.scores(), timestampNanos);
+    }
+
+    /**
+     * Adds the probabilities of a new frame to the moving average and commits
+     * the leading gesture if it has been stable for long enough.
+     *
+     * @param scores the probability of every class for the frame
+     * @param timestampNanos the System.nanoTime() at which the frame was captured
+     */
+    public void update(float[] scores, long timestampNanos) {
+        Prediction commit = null;
+
+        synchronized (this) {
+            // Blend the new probabilities into the moving average
+            if (smoothed == null || smoothed.length != scores.length) {
+                smoothed = scores.clone();
+            }
+            else {
+                for (int i = 0; i < scores.length; i++) {
+                    smoothed[i] += alpha * (scores[i] - smoothed[i]);
+                }
+            }
+
+            int top = 0;
+            for (int i = 1; i < smoothed.length; i++) {
+                if (smoothed[i] > smoothed[top]) {
+                    top = i;
+                }
+            }
+
+            // Release the committed gesture once it is no longer clearly shown
+            if (committed >= 0 && (top != committed || smoothed[committed] < releaseConfidence)) {
+                committed = -1;
+            }
+
+            // Drop the candidate only when another gesture leads or it falls below the release
+            // confidence, so a single bad frame does not restart the hold time
+            if (candidate >= 0 && (top != candidate || smoothed[candidate] < releaseConfidence)) {
+                candidate = -1;
+            }
+
+            if (candidate < 0 && smoothed[top] >= commitConfidence) {
+                candidate = top;
+                candidateSinceNanos = timestampNanos;
+            }
+
+            // Commit the candidate once it has been held long enough and is confidently shown
+            if (candidate >= 0 && committed < 0 && smoothed[candidate] >= commitConfidence
+                    && timestampNanos - candidateSinceNanos >= holdNanos) {
+                committed = candidate;
+                commit = new Prediction(labels.get(candidate), candidate, gestures[candidate],
+                    smoothed[candidate], smoothed.clone());
+            }
+        }
+
+        // Notify outside the lock so a slow listener cannot block other updates
+        Consumer<Prediction> currentListener = listener;
+        if (commit != null && currentListener != null) {
+            currentListener.accept(commit);
+        }
+    }
+
+    /**
+     * Forgets the moving average and the candidate gesture. A committed gesture
+     * stays latched until it is released, so a gesture still held from the
+     * previous game is not committed again right away.
+     */
+    public synchronized void reset() {
+        smoothed = null;
+        candidate = -1;
+        candidateSinceNanos = 0;
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.codedotorg.modelmanager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+
+public class ImageDirectoryFrameSource implements FrameSource {
+
+    /** The directory holding the images */
+    private final Path directory;
+
+    /** Whether to start again from the first image after the last one */
+    private final boolean loop;
+
+    /** The decoded images, loaded once when the source is opened */
+    private final List<Mat> images;
+
+    /** The index of the next image to read */
+    private int next;
+
+    /**
+     * Constructs a new ImageDirectoryFrameSource for the images in the given directory.
+     * Images are read in file name order.
+     *
+     * @param directory the directory holding the images
+     * @param loop whether to start again from the first image after the last one
+     */
+    public ImageDirectoryFrameSource(Path directory, boolean loop) {
+        this.directory = directory;
+        this.loop = loop;
+        images = new ArrayList<>();
+        next = 0;
+    }
+
+    /**
+     * Decodes every PNG, JPEG and BMP image in the directory up front, so reading
+     * frames measures the pipeline rather than the disk and the image decoder.
+     *
+     * @return true if at least one image was loaded, false otherwise
+     */
+    @Override
+    public boolean open() {
+        List<Path> files;
+
+        try (Stream<Path> entries = Files.list(directory)) {
+            files = entries
+                .filter(path -> path.getFileName().toString().toLowerCase().matches(".*\\.(png|jpe?g|bmp)"))
+                .sorted()
+                .collect(Collectors.toList());
+        } catch (IOException e) {
+            System.err.println("Failed to list the images in " + directory);
+            e.printStackTrace();
+            return false;
+        }
+
+        for (Path file : files) {
+            Mat image = NativeResources.track(Imgcodecs.imread(file.toString()));
+
+            if (image.empty()) {
+                System.err.println("Skipping unreadable image " + file);
+                NativeResources.release(image);
+            }
+            else {
+                images.add(image);
+            }
+        }
+
+        return !images.isEmpty();
+    }
+
+    @Override
+    public boolean read(Mat frame) {
+        if (next >= images.size()) {
+            if (!loop || images.isEmpty()) {
+                return false;
+            }
+            next = 0;
+        }
+
+        images.get(next++).copyTo(frame);
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return "images:" + directory;
+    }
+
+    @Override
+    public void close() {
+        for (Mat image : images) {
+            NativeResources.release(image);
+        }
+        images.clear();
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.codedotorg.modelmanager;
+
+import java.nio.FloatBuffer;
+
+public interface InferenceBackend extends AutoCloseable {
+
+    /**
+     * Loads the model so that run() can be called. Called once, before any frame is run.
+     *
+     * @throws IllegalStateException if the model cannot be loaded
+     */
+    void load();
+
+    /**
+     * Runs the model on a batch of preprocessed frames. Must be safe to call from
+     * several threads at once, each with its own buffers.
+     *
+     * @param input the normalized frames, batchSize * InferenceBuffers.FRAME_FLOATS values ready to be read
+     * @param batchSize the number of frames in the input
+     * @param buffers the buffers of the calling worker, whose output buffer receives the result
+     * @return the output buffer holding batchSize rows of getNumClasses() probabilities, ready to be read
+     */
+    FloatBuffer run(FloatBuffer input, int batchSize, InferenceBuffers buffers);
+
+    /**
+     * Returns the number of classes the model outputs for each frame.
+     *
+     * @return the number of classes
+     */
+    int getNumClasses();
+
+    /**
+     * Returns a short description of the backend for logs and reports.
+     *
+     * @return the name of the backend
+     */
+    String getName();
+
+    /**
+     * Releases the resources held by the backend.
+     */
+    void close();
+
+}
@@ -0,0 +1,180 @@
+package com.codedotorg.modelmanager;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+public class InferenceBuffers {
+
+    /** The width and height of the images the model expects */
+    public static final int INPUT_SIZE = 224;
+
+    /** The number of color channels the model expects */
+    public static final int CHANNELS = 3;
+
+    /** The number of values in one preprocessed frame */
+    public static final int FRAME_FLOATS = INPUT_SIZE * INPUT_SIZE * CHANNELS;
+
+    /** The reused target of the resize step */
+    private final Mat resized;
+
+    /** The reused pixel bytes copied out of the resized frame */
+    private final byte[] pixels;
+
+    /** The largest number of frames that fit in the input buffer */
+    private final int maxBatchSize;
+
+    /** The direct memory backing both the input buffer and the normalized Mats */
+    private final ByteBuffer inputBytes;
+
+    /** The direct buffer holding the normalized model input for the whole batch */
+    private final FloatBuffer input;
+
+    /** One float Mat per batch slot, each sharing memory with its part of the input buffer */
+    private final Mat[] normalized;
+
+    /** The direct buffer the model output is written into, sized on first use */
+    private FloatBuffer output;
+
+    /** The reused array of class probabilities, sized on first use */
+    private float[] scores;
+
+    /** The shape of the input tensor as [batch_size, height, width, channels] */
+    private final long[] inputShape;
+
+    /**
+     * Constructs a new set of buffers for one inference worker that prepares one frame at a time.
+     */
+    public InferenceBuffers() {
+        this(1);
+    }
+
+    /**
+     * Constructs a new set of buffers for one inference worker that prepares
+     * up to maxBatchSize frames for a single model run.
+     *
+     * @param maxBatchSize the largest number of frames in one batch
+     */
+    public InferenceBuffers(int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1, got " + maxBatchSize);
+        }
+
+        this.maxBatchSize = maxBatchSize;
+        resized = NativeResources.newMat();
+        pixels = new byte[FRAME_FLOATS];
+        inputBytes = ByteBuffer.allocateDirect(maxBatchSize * FRAME_FLOATS * Float.BYTES).order(ByteOrder.nativeOrder());
+        input = inputBytes.asFloatBuffer();
+
+        // Wrap each frame's part of the direct memory in its own float Mat
+        normalized = new Mat[maxBatchSize];
+        for (int i = 0; i < maxBatchSize; i++) {
+            ByteBuffer slot = inputBytes.duplicate();
+            slot.position(i * FRAME_FLOATS * Float.BYTES);
+            normalized[i] = NativeResources.newMat(INPUT_SIZE, INPUT_SIZE, CvType.CV_32FC3, slot.slice());
+        }
+
+        inputShape = new long[] {1, INPUT_SIZE, INPUT_SIZE, CHANNELS};
+    }
+
+    /**
+     * Returns the largest number of frames these buffers can hold.
+     *
+     * @return the maximum batch size
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Returns the Mat the frame is resized into.
+     *
+     * @return the reused resize target
+     */
+    public Mat getResized() {
+        return resized;
+    }
+
+    /**
+     * Returns the array the resized pixels are copied into.
+     *
+     * @return the reused pixel array
+     */
+    public byte[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * Returns the direct buffer holding the model input.
+     *
+     * @return the input buffer
+     */
+    public FloatBuffer getInput() {
+        return input;
+    }
+
+    /**
+     * Returns the float Mat that shares its memory with the given batch slot of the input buffer.
+     *
+     * @param slot the index of the frame in the batch
+     * @return the normalized Mat of the slot
+     */
+    public Mat getNormalized(int slot) {
+        return normalized[slot];
+    }
+
+    /**
+     * Returns the shape of the input tensor for the given number of frames.
+     *
+     * @param batchSize the number of frames in the batch
+     * @return the input shape
+     */
+    public long[] getInputShape(int batchSize) {
+        inputShape[0] = batchSize;
+        return inputShape;
+    }
+
+    /**
+     * Returns a cleared output buffer that can hold the given number of values,
+     * allocating it only the first time or if the model output grows.
+     *
+     * @param size the number of output values
+     * @return the output buffer
+     */
+    public FloatBuffer getOutput(int size) {
+        if (output == null || output.capacity() < size) {
+            output = ByteBuffer.allocateDirect(size * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        }
+        output.clear();
+        return output;
+    }
+
+    /**
+     * Returns the array of class probabilities, allocating it only the first
+     * time or if the number of classes changes.
+     *
+     * @param size the number of classes
+     * @return the scores array
+     */
+    public float[] getScores(int size) {
+        if (scores == null || scores.length != size) {
+            scores = new float[size];
+        }
+        return scores;
+    }
+
+    /**
+     * Releases the native memory of the Mats. The buffers cannot be used afterwards.
+     */
+    public void release() {
+        NativeResources.release(resized);
+
+        for (Mat slot : normalized) {
+            NativeResources.release(slot);
+        }
+    }
+
+}
@@ -0,0 +1,173 @@
+package com.codedotorg.modelmanager;
+
+import java.util.Map;
+
+import org.tensorflow.Graph;
+import org.tensorflow.Session;
+import org.tensorflow.Shape;
+import org.tensorflow.Tensor;
+import org.tensorflow.framework.MetaGraphDef;
+import org.tensorflow.framework.SignatureDef;
+import org.tensorflow.framework.TensorInfo;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+
+public final class InferencePlan {
+
+    /** The name of the signature exported by Keras and Teachable Machine models */
+    public static final String SERVING_SIGNATURE = "serving_default";
+
+    /** The name of the operation fed with the input tensor */
+    private final String inputOperation;
+
+    /** The output index of the input operation */
+    private final int inputIndex;
+
+    /** The name of the operation fetched for the class probabilities */
+    private final String outputOperation;
+
+    /** The output index of the output operation */
+    private final int outputIndex;
+
+    /** Where the plan was resolved from (the signature name or "heuristic") */
+    private final String source;
+
+    /**
+     * Constructs a new InferencePlan with the given input and output endpoints.
+     *
+     * @param inputOperation the name of the input operation
+     * @param inputIndex the output index of the input operation
+     * @param outputOperation the name of the output operation
+     * @param outputIndex the output index of the output operation
+     * @param source where the plan was resolved from
+     */
+    public InferencePlan(String inputOperation, int inputIndex, String outputOperation, int outputIndex, String source) {
+        this.inputOperation = inputOperation;
+        this.inputIndex = inputIndex;
+        this.outputOperation = outputOperation;
+        this.outputIndex = outputIndex;
+        this.source = source;
+    }
+
+    /**
+     * Resolves the plan from the serving_default signature in the SavedModel's
+     * MetaGraphDef, which names the exact input and output tensors.
+     *
+     * @param metaGraphDef the serialized MetaGraphDef of the loaded model
+     * @return the resolved plan, or null if the model has no usable serving_default signature
+     */
+    public static InferencePlan fromSignature(byte[] metaGraphDef) {
+        SignatureDef signature;
+
+        try {
+            Map<String, SignatureDef> signatures = MetaGraphDef.parseFrom(metaGraphDef).getSignatureDefMap();
+            signature = signatures.get(SERVING_SIGNATURE);
+        } catch (InvalidProtocolBufferException e) {
+            System.err.println("Failed to read the model signatures: " + e.getMessage());
+            return null;
+        }
+
+        // The classifier has exactly one input (the image) and one output (the probabilities)
+        if (signature == null || signature.getInputsCount() != 1 || signature.getOutputsCount() != 1) {
+            return null;
+        }
+
+        TensorInfo input = signature.getInputsMap().values().iterator().next();
+        TensorInfo output = signature.getOutputsMap().values().iterator().next();
+
+        return new InferencePlan(operationName(input.getName()), outputIndex(input.getName()),
+            operationName(output.getName()), outputIndex(output.getName()), SERVING_SIGNATURE);
+    }
+
+    /**
+     * Checks that both endpoints of the plan exist in the given graph.
+     *
+     * @param graph the graph of the loaded model
+     * @throws IllegalStateException if the input or output operation is missing
+     */
+    public void validate(Graph graph) {
+        if (inputOperation.isEmpty() || graph.operation(inputOperation) == null) {
+            throw new IllegalStateException("Model input operation '" + inputOperation + "' (from " + source + ") was not found in the graph");
+        }
+
+        if (outputOperation.isEmpty() || graph.operation(outputOperation) == null) {
+            throw new IllegalStateException("Model output operation '" + outputOperation + "' (from " + source + ") was not found in the graph");
+        }
+    }
+
+    /**
+     * Creates a runner that feeds the given input tensor and fetches the output.
+     * TensorFlow runners are single-use, so only the resolved names are cached.
+     *
+     * @param session the session to run the model in
+     * @param input the input tensor
+     * @return a runner ready to be run
+     */
+    public Session.Runner runner(Session session, Tensor<?> input) {
+        return session.runner()
+            .feed(inputOperation, inputIndex, input)
+            .fetch(outputOperation, outputIndex);
+    }
+
+    /**
+     * Returns the number of values the output produces for each frame, read from
+     * the static shape of the output in the graph.
+     *
+     * @param graph the graph of the loaded model
+     * @return the width of the output, or -1 if the graph does not know it
+     */
+    public int getOutputWidth(Graph graph) {
+        Shape shape = graph.operation(outputOperation).output(outputIndex).shape();
+        return shape.numDimensions() < 2 ? -1 : (int) shape.size(shape.numDimensions() - 1);
+    }
+
+    /**
+     * Returns the name of the input operation.
+     *
+     * @return the name of the input operation
+     */
+    public String getInputOperation() {
+        return inputOperation;
+    }
+
+    /**
+     * Returns the name of the output operation.
+     *
+     * @return the name of the output operation
+     */
+    public String getOutputOperation() {
+        return outputOperation;
+    }
+
+    /**
+     * Returns a string representation of the plan.
+     *
+     * @return a string containing the input, output and source of the plan
+     */
+    public String toString() {
+        return "InferencePlan: input=" + inputOperation + ":" + inputIndex + ", output=" + outputOperation + ":" + outputIndex + ", source=" + source;
+    }
+
+    /**
+     * Returns the operation part of a tensor name such as "input_1:0".
+     *
+     * @param tensorName the name of the tensor
+     * @return the name of the operation
+     */
+    private static String operationName(String tensorName) {
+        int colon = tensorName.lastIndexOf(':');
+        return colon < 0 ? tensorName : tensorName.substring(0, colon);
+    }
+
+    /**
+     * Returns the output index part of a tensor name such as "input_1:0".
+     *
+     * @param tensorName the name of the tensor
+     * @return the output index, or 0 if the name has none
+     */
+    private static int outputIndex(String tensorName) {
+        int colon = tensorName.lastIndexOf(':');
+        return colon < 0 ? 0 : Integer.parseInt(tensorName.substring(colon + 1));
+    }
+
+}
@@ -0,0 +1,189 @@
+package com.codedotorg.modelmanager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class LatencyHistogram {
+
+    /** The number of sub-buckets each power of two is split into (relative error of 1/8) */
+    private static final int SUB_BUCKETS = 8;
+
+    /** The number of bits needed to index a sub-bucket */
+    private static final int SUB_BUCKET_BITS = 3;
+
+    /** The number of buckets, enough to cover every positive long value */
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    /** The number of recorded values in each bucket */
+    private final AtomicLongArray counts;
+
+    /** The number of recorded values */
+    private final AtomicLong count;
+
+    /** The sum of the recorded values */
+    private final AtomicLong total;
+
+    /** The largest recorded value */
+    private final AtomicLong max;
+
+    /**
+     * Constructs a new empty LatencyHistogram. Recording never allocates or locks,
+     * so it can be used on the capture and inference threads.
+     */
+    public LatencyHistogram() {
+        counts = new AtomicLongArray(BUCKET_COUNT);
+        count = new AtomicLong();
+        total = new AtomicLong();
+        max = new AtomicLong();
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency in nanoseconds (negative values are recorded as 0)
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+
+        counts.incrementAndGet(bucketIndex(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Records the time elapsed since the given System.nanoTime() value.
+     *
+     * @param startNanos the System.nanoTime() at which the measured work started
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns the mean of the recorded values.
+     *
+     * @return the mean in nanoseconds, or 0 if nothing was recorded
+     */
+    public double getMeanNanos() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) total.get() / n;
+    }
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @return the maximum in nanoseconds
+     */
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    /**
+     * Returns the value below which the given fraction of recorded values fall,
+     * accurate to within one eighth of the value.
+     *
+     * @param percentile the percentile between 0 and 100
+     * @return the percentile in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+
+        // Walk the buckets until the requested rank is reached
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), max.get());
+            }
+        }
+
+        return max.get();
+    }
+
+    /**
+     * Returns the given percentile converted to the given unit.
+     *
+     * @param percentile the percentile between 0 and 100
+     * @param unit the unit to convert to
+     * @return the percentile in the given unit
+     */
+    public double getPercentile(double percentile, TimeUnit unit) {
+        return (double) getPercentileNanos(percentile) / unit.toNanos(1);
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Returns a summary of the recorded latencies in milliseconds.
+     *
+     * @return a string containing the count, mean, p50, p99 and max
+     */
+    public String toString() {
+        return String.format("count=%d, mean=%.2fms, p50=%.2fms, p99=%.2fms, max=%.2fms",
+            getCount(), getMeanNanos() / 1e6, getPercentileNanos(50) / 1e6,
+            getPercentileNanos(99) / 1e6, getMaxNanos() / 1e6);
+    }
+
+    /**
+     * Returns the bucket a value falls into. Values below 8 get a bucket each;
+     * larger values share a bucket with values of the same power of two and
+     * the same next three bits.
+     *
+     * @param value the non-negative value
+     * @return the index of the bucket
+     */
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the largest value that falls into the given bucket.
+     *
+     * @param index the index of the bucket
+     * @return the upper bound of the bucket
+     */
+    private static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        long lower = (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        return lower + width - 1;
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.codedotorg.modelmanager;
+
+import java.nio.FloatBuffer;
+import java.util.concurrent.locks.LockSupport;
+
+public class MockInferenceBackend implements InferenceBackend {
+
+    /** The number of input values sampled to derive the output of a frame */
+    private static final int SAMPLES = 64;
+
+    /** The probability given to the winning class before it is varied per frame */
+    private static final float BASE_CONFIDENCE = 0.7f;
+
+    /** The number of classes to output for each frame */
+    private final int numClasses;
+
+    /** The simulated latency of each run, in nanoseconds */
+    private final long latencyNanos;
+
+    /** Mixed into the output so different seeds give different (but repeatable) results */
+    private final long seed;
+
+    /**
+     * Constructs a new MockInferenceBackend. The output depends only on the input
+     * values and the seed, so the same frames always produce the same predictions,
+     * and no TensorFlow library or model is needed.
+     *
+     * @param numClasses the number of classes to output for each frame
+     * @param latencyMicros the simulated latency of each run in microseconds (0 for none)
+     * @param seed mixed into the output so different seeds give different results
+     */
+    public MockInferenceBackend(int numClasses, long latencyMicros, long seed) {
+        if (numClasses < 2) {
+            throw new IllegalArgumentException("numClasses must be at least 2, got " + numClasses);
+        }
+
+        this.numClasses = numClasses;
+        this.latencyNanos = latencyMicros * 1000;
+        this.seed = seed;
+    }
+
+    @Override
+    public void load() {
+        System.out.println("Using the mock inference backend (" + numClasses + " classes, " + latencyNanos / 1000 + "us latency)");
+    }
+
+    @Override
+    public FloatBuffer run(FloatBuffer input, int batchSize, InferenceBuffers buffers) {
+        long runStart = System.nanoTime();
+        FloatBuffer output = buffers.getOutput(batchSize * numClasses);
+        int offset = input.position();
+
+        for (int frame = 0; frame < batchSize; frame++) {
+            // Hash a spread of the frame's input values together with the seed
+            long hash = seed;
+            int frameStart = offset + frame * InferenceBuffers.FRAME_FLOATS;
+            for (int i = 0; i < SAMPLES; i++) {
+                int index = frameStart + (int) ((long) i * InferenceBuffers.FRAME_FLOATS / SAMPLES);
+                hash = hash * 31 + Float.floatToIntBits(input.get(index));
+            }
+            hash ^= hash >>> 29;
+
+            // Give the winning class most of the probability and share the rest evenly
+            int winner = (int) Math.floorMod(hash, (long) numClasses);
+            float confidence = BASE_CONFIDENCE + (1 - BASE_CONFIDENCE) * ((hash >>> 40) & 0xFF) / 255f;
+            float others = (1 - confidence) / (numClasses - 1);
+
+            for (int i = 0; i < numClasses; i++) {
+                output.put(i == winner ? confidence : others);
+            }
+        }
+
+        // Wait out the rest of the simulated latency
+        long remaining = latencyNanos - (System.nanoTime() - runStart);
+        if (remaining > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+        PipelineMetrics.recordSince(PipelineStage.SESSION_RUN, runStart);
+
+        output.flip();
+        return output;
+    }
+
+    @Override
+    public int getNumClasses() {
+        return numClasses;
+    }
+
+    @Override
+    public String getName() {
+        return "mock";
+    }
+
+    @Override
+    public void close() {
+    }
+
+}
@@ -0,0 +1,253 @@
+package com.codedotorg.modelmanager;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+public final class ModelLocator {
+
+    /** The system property naming a model directory to use instead of the packaged model */
+    public static final String MODEL_DIR_PROPERTY = "guessinggame.model.dir";
+
+    /** The environment variable naming a model directory, used when the property is not set */
+    public static final String MODEL_DIR_ENV = "GUESSINGGAME_MODEL_DIR";
+
+    /** The system property overriding the directory packaged models are extracted to */
+    public static final String CACHE_DIR_PROPERTY = "guessinggame.model.cache";
+
+    /** The classpath directory the model is packaged in */
+    private static final String RESOURCE_DIR = "com/codedotorg/model/";
+
+    /** The labels file, the only file every model directory must contain */
+    private static final String LABELS_FILE = "labels.txt";
+
+    /** The files of the packaged model, relative to RESOURCE_DIR */
+    private static final List<String> MODEL_FILES = List.of(
+        "saved_model.pb",
+        "variables/variables.index",
+        "variables/variables.data-00000-of-00001",
+        LABELS_FILE);
+
+    /** Marks a cache directory whose extraction finished */
+    private static final String COMPLETE_MARKER = ".complete";
+
+    /** The located model directory, shared by every ModelProcessor */
+    private static volatile Path modelDirectory;
+
+    /**
+     * Prevents instantiation; use locate().
+     */
+    private ModelLocator() {
+    }
+
+    /**
+     * Returns the directory containing the model and its labels. The first call
+     * looks in this order:
+     * 1. the directory named by -Dguessinggame.model.dir or GUESSINGGAME_MODEL_DIR
+     * 2. the packaged model itself, when the classpath is a directory (such as target/classes)
+     * 3. the packaged model extracted from the jar into a cache directory named
+     *    after a hash of its files' sizes and timestamps, extracting it only if it is not there yet
+     *
+     * @return the model directory
+     * @throws IllegalStateException if no model can be found or extracted
+     */
+    public static Path locate() {
+        Path directory = modelDirectory;
+
+        if (directory == null) {
+            synchronized (ModelLocator.class) {
+                directory = modelDirectory;
+                if (directory == null) {
+                    directory = findModelDirectory();
+                    System.out.println("Using the model in " + directory);
+                    modelDirectory = directory;
+                }
+            }
+        }
+
+        return directory;
+    }
+
+    /**
+     * Finds or extracts the model directory.
+     *
+     * @return the model directory
+     */
+    private static Path findModelDirectory() {
+        // An external directory always wins, so a new model can be tried without rebuilding
+        String override = System.getProperty(MODEL_DIR_PROPERTY, System.getenv(MODEL_DIR_ENV));
+        if (override != null && !override.isEmpty()) {
+            Path directory = Paths.get(override).toAbsolutePath();
+            if (!Files.isRegularFile(directory.resolve(LABELS_FILE))) {
+                throw new IllegalStateException("No " + LABELS_FILE + " in the model directory " + directory);
+            }
+            return directory;
+        }
+
+        URL labels = resource(LABELS_FILE);
+        if (labels == null) {
+            throw new IllegalStateException("The model is not on the classpath under " + RESOURCE_DIR);
+        }
+
+        // Unpacked classpath: load the model where it is
+        if ("file".equals(labels.getProtocol())) {
+            try {
+                return Paths.get(labels.toURI()).getParent();
+            } catch (URISyntaxException e) {
+                throw new IllegalStateException("Invalid model location " + labels, e);
+            }
+        }
+
+        // Packaged in a jar: TensorFlow can only load from the file system
+        try {
+            return extract();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to extract the model", e);
+        }
+    }
+
+    /**
+     * Extracts the packaged model into the cache, unless an earlier run already did.
+     * Files are copied into a temporary directory that is renamed into place once
+     * complete, so an interrupted or concurrent extraction is never picked up, and a
+     * cache directory is never modified or deleted once it exists.
+     *
+     * @return the cache directory holding the model
+     * @throws IOException if a model file is not packaged or cannot be read or written
+     */
+    private static Path extract() throws IOException {
+        String defaultCache = Paths.get(System.getProperty("user.home"), ".guessinggame", "models").toString();
+        Path cacheRoot = Paths.get(System.getProperty(CACHE_DIR_PROPERTY, defaultCache));
+        Path directory = cacheRoot.resolve(cacheKey());
+
+        // A complete extraction is trusted as is
+        if (Files.exists(directory.resolve(COMPLETE_MARKER))) {
+            return directory;
+        }
+
+        long start = System.nanoTime();
+        Files.createDirectories(cacheRoot);
+        Path staging = Files.createTempDirectory(cacheRoot, "extracting-");
+
+        try {
+            for (String file : MODEL_FILES) {
+                try (InputStream in = openResource(file)) {
+                    if (in == null) {
+                        throw new FileNotFoundException("The model file " + RESOURCE_DIR + file + " is not packaged");
+                    }
+
+                    Path target = staging.resolve(file);
+                    Files.createDirectories(target.getParent());
+                    Files.copy(in, target);
+                }
+            }
+
+            Files.createFile(staging.resolve(COMPLETE_MARKER));
+
+            // The rename fails if another process finished the same extraction in the meantime
+            try {
+                Files.move(staging, directory, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileSystemException e) {
+                if (!Files.exists(directory.resolve(COMPLETE_MARKER))) {
+                    throw e;
+                }
+            }
+        } finally {
+            deleteRecursively(staging);
+        }
+
+        System.out.printf("Extracted the model to %s in %.0fms%n", directory, (System.nanoTime() - start) / 1e6);
+        return directory;
+    }
+
+    /**
+     * Hashes the name, size and timestamp of every packaged model file with SHA-256.
+     * Only the resource metadata is read, so a cached model is found without reading
+     * the model, and rebuilding the jar with a different model changes the key.
+     *
+     * @return the first 16 hex digits of the hash
+     * @throws IOException if a model file is not packaged or its metadata cannot be read
+     */
+    private static String cacheKey() throws IOException {
+        MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        for (String file : MODEL_FILES) {
+            URL url = resource(file);
+            if (url == null) {
+                throw new FileNotFoundException("The model file " + RESOURCE_DIR + file + " is not packaged");
+            }
+
+            URLConnection connection = url.openConnection();
+            // A jar entry keeps its own timestamp; the jar file's changes on every rebuild
+            long modified = connection instanceof JarURLConnection
+                ? ((JarURLConnection) connection).getJarEntry().getTime()
+                : connection.getLastModified();
+            String entry = file + ":" + connection.getContentLengthLong() + ":" + modified + "\n";
+            digest.update(entry.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return HexFormat.of().formatHex(digest.digest()).substring(0, 16);
+    }
+
+    /**
+     * Returns the URL of a packaged model file.
+     *
+     * @param file the file relative to the model directory
+     * @return the URL, or null if the file is not packaged
+     */
+    private static URL resource(String file) {
+        return ModelLocator.class.getClassLoader().getResource(RESOURCE_DIR + file);
+    }
+
+    /**
+     * Opens a packaged model file.
+     *
+     * @param file the file relative to the model directory
+     * @return the stream, or null if the file is not packaged
+     */
+    private static InputStream openResource(String file) {
+        return ModelLocator.class.getClassLoader().getResourceAsStream(RESOURCE_DIR + file);
+    }
+
+    /**
+     * Deletes a directory and everything in it, if it exists.
+     *
+     * @param directory the directory to delete
+     * @throws IOException if a file cannot be deleted
+     */
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+}
@@ -1,24 +1,98 @@
 package com.codedotorg.modelmanager;
 
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
 import org.opencv.core.Mat;
 
 public class ModelManager {
+
+    /** The number of inference workers created by default (half the cores, at least one) */
+    public static final int DEFAULT_WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    /** How long getPrediction waits for a free worker by default */
+    public static final long DEFAULT_ACQUIRE_TIMEOUT_MILLIS = 500;
     
     /** The ModelProcessor to load and process the model */
     private ModelProcessor modelProcessor;
 
-    /** The ModelPredictor to predict the class and obtain the confidence score */
-    private ModelPredictor modelPredictor;
+    /** The backend that runs the model for every worker */
+    private InferenceBackend backend;
+
+    /** The inference workers that are free to take a frame, each with its own buffers */
+    private BlockingQueue<ModelPredictor> idleWorkers;
+
+    /** The total number of inference workers */
+    private int workerCount;
+
+    /** How long getPrediction waits for a free worker before rejecting the frame */
+    private volatile long acquireTimeoutMillis;
 
     /**
-     * Constructs a new ModelManager object.
-     * Initializes a ModelProcessor object, loads the model and labels, and initializes a ModelPredictor object.
+     * Constructs a new ModelManager object with the default number of workers.
+     * Initializes a ModelProcessor object, loads the model and labels, and initializes the ModelPredictor workers.
      */
     public ModelManager() {
+        this(DEFAULT_WORKERS, ModelPredictor.DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Constructs a new ModelManager object with a pool of inference workers.
+     * All workers share the loaded graph and session; each one keeps its own
+     * preallocated buffers, so predictions can run on several threads at once.
+     *
+     * @param workers the number of inference workers
+     * @param maxBatchSize the largest number of frames a worker runs in a single session run
+     */
+    public ModelManager(int workers, int maxBatchSize) {
+        this(null, workers, maxBatchSize);
+    }
+
+    /**
+     * Constructs a new ModelManager object that runs the model on the given backend,
+     * such as a MockInferenceBackend for load tests without TensorFlow.
+     *
+     * @param backend the backend to run the model on, or null for the TensorFlow SavedModel
+     * @param workers the number of inference workers
+     * @param maxBatchSize the largest number of frames a worker runs in a single session run
+     * @throws IllegalStateException if the labels or the model fail to load, or if the
+     *     number of labels does not match the number of classes the model outputs
+     */
+    public ModelManager(InferenceBackend backend, int workers, int maxBatchSize) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be at least 1, got " + workers);
+        }
+
         modelProcessor = new ModelProcessor();
-        modelProcessor.loadModel();
         modelProcessor.loadLabels();
-        modelPredictor = new ModelPredictor(modelProcessor);
+
+        // Load the model on the TensorFlow backend unless another backend was given
+        this.backend = backend != null ? backend : new TensorFlowBackend(modelProcessor);
+        this.backend.load();
+
+        // Fail now rather than on the first frame whose class has no label
+        int numClasses = this.backend.getNumClasses();
+        List<String> labels = modelProcessor.getLabels();
+        if (numClasses <= 0) {
+            throw new IllegalStateException("The number of classes the model " + this.backend.getName()
+                + " outputs is not known, so labels.txt cannot be checked against it");
+        }
+        if (labels.size() != numClasses) {
+            throw new IllegalStateException("labels.txt has " + labels.size() + " labels but the model "
+                + this.backend.getName() + " outputs " + numClasses + " classes");
+        }
+
+        // Create the workers up front so their buffers are allocated before the first frame
+        workerCount = workers;
+        idleWorkers = new ArrayBlockingQueue<>(workers);
+        for (int i = 0; i < workers; i++) {
+            idleWorkers.add(new ModelPredictor(modelProcessor, this.backend, maxBatchSize));
+        }
+
+        acquireTimeoutMillis = DEFAULT_ACQUIRE_TIMEOUT_MILLIS;
     }
 
     /**
@@ -29,15 +103,169 @@ public class ModelManager {
     public ModelProcessor getModelProcessor() {
         return modelProcessor;
     }
+
+    /**
+     * Returns the backend that runs the model.
+     *
+     * @return the inference backend
+     */
+    public InferenceBackend getBackend() {
+        return backend;
+    }
+
+    /**
+     * Returns the number of inference workers.
+     *
+     * @return the number of workers
+     */
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    /**
+     * Returns the number of inference workers that are currently free.
+     *
+     * @return the number of idle workers
+     */
+    public int getIdleWorkerCount() {
+        return idleWorkers.size();
+    }
+
+    /**
+     * Sets how long getPrediction waits for a free worker before rejecting the frame.
+     *
+     * @param acquireTimeoutMillis the maximum wait in milliseconds
+     */
+    public void setAcquireTimeoutMillis(long acquireTimeoutMillis) {
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+    }
     
     /**
      * Returns a Prediction object containing the predicted class name and confidence level for a given input frame.
+     * Safe to call from several threads at once; waits up to the acquire timeout for a free worker.
      * 
      * @param frame the input frame to be processed
      * @return a Prediction object containing the predicted class name and confidence level
+     * @throws RejectedExecutionException if every worker stays busy for the whole acquire timeout
      */
     public Prediction getPrediction(Mat frame) {
-        return modelPredictor.processFrameAndGetClassNameWithConfidence(frame);
+        Prediction prediction = tryGetPrediction(frame, acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+
+        if (prediction == null) {
+            throw new RejectedExecutionException("All " + workerCount + " inference workers are busy");
+        }
+
+        return prediction;
+    }
+
+    /**
+     * Returns a Prediction for the given frame if a worker becomes free within the timeout.
+     * Callers that can skip frames should use this to apply back-pressure instead of queuing.
+     * 
+     * @param frame the input frame to be processed
+     * @param timeout the maximum time to wait for a free worker
+     * @param unit the unit of the timeout
+     * @return the prediction, or null if every worker stayed busy
+     */
+    public Prediction tryGetPrediction(Mat frame, long timeout, TimeUnit unit) {
+        ModelPredictor worker = acquireWorker(timeout, unit);
+
+        if (worker == null) {
+            return null;
+        }
+
+        try {
+            return worker.processFrameAndGetClassNameWithConfidence(frame);
+        } finally {
+            idleWorkers.add(worker);
+        }
+    }
+
+    /**
+     * Fills the given distribution with the top-K classes, margin, entropy and all
+     * probabilities for the frame, without allocating per frame. Each calling thread
+     * should pass its own distribution.
+     * 
+     * @param frame the input frame to be processed
+     * @param distribution the distribution to fill
+     * @return the filled distribution
+     * @throws RejectedExecutionException if every worker stays busy for the whole acquire timeout
+     */
+    public PredictionDistribution getDistribution(Mat frame, PredictionDistribution distribution) {
+        ModelPredictor worker = acquireWorker(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+
+        if (worker == null) {
+            throw new RejectedExecutionException("All " + workerCount + " inference workers are busy");
+        }
+
+        try {
+            return worker.predictDistribution(frame, distribution);
+        } finally {
+            idleWorkers.add(worker);
+        }
+    }
+
+    /**
+     * Returns a Prediction for each of the given frames, running them through
+     * the model in batches instead of one session run per frame.
+     * 
+     * @param frames the input frames to be processed
+     * @return the predictions, in the same order as the frames
+     * @throws RejectedExecutionException if every worker stays busy for the whole acquire timeout
+     */
+    public List<Prediction> getPredictions(List<Mat> frames) {
+        ModelPredictor worker = acquireWorker(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+
+        if (worker == null) {
+            throw new RejectedExecutionException("All " + workerCount + " inference workers are busy");
+        }
+
+        try {
+            return worker.predictBatch(frames);
+        } finally {
+            idleWorkers.add(worker);
+        }
+    }
+
+    /**
+     * Waits for every worker to finish its frame, releases their buffers and closes
+     * the backend. The ModelManager cannot be used afterwards.
+     *
+     * @throws IllegalStateException if a worker is still busy after the acquire timeout
+     */
+    public void close() {
+        for (int i = 0; i < workerCount; i++) {
+            ModelPredictor worker = acquireWorker(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+
+            if (worker == null) {
+                throw new IllegalStateException("An inference worker is still busy");
+            }
+
+            worker.release();
+        }
+
+        backend.close();
+    }
+
+    /**
+     * Takes a free worker from the pool, waiting up to the given timeout.
+     * A frame that gets no worker in time is counted as rejected.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return a free worker, or null if none became free in time
+     */
+    private ModelPredictor acquireWorker(long timeout, TimeUnit unit) {
+        try {
+            ModelPredictor worker = idleWorkers.poll(timeout, unit);
+            if (worker == null) {
+                PipelineMetrics.increment(PipelineCounter.FRAMES_REJECTED);
+            }
+            return worker;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
     }
     
 }
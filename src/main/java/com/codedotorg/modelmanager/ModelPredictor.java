@@ -1,20 +1,82 @@
 package com.codedotorg.modelmanager;
 
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.opencv.core.Mat;
 import org.tensorflow.Tensor;
 
 public class ModelPredictor {
 
+    /**
+     * The number of frames a predictor can run together by default. The game only
+     * classifies one frame at a time, so batch slots (a 600 KB direct buffer and a
+     * Mat each) are opt-in through the maxBatchSize constructor argument.
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1;
+
+    /** The largest batch size a predictor can be configured with */
+    public static final int MAX_BATCH_SIZE = 64;
+
     /** The ModelProcessor to load and process the model */
     private ModelProcessor modelProcessor;
 
+    /** The backend that runs the model on the prepared frames */
+    private InferenceBackend backend;
+
+    /** The preallocated buffers this predictor prepares frames and reads results with */
+    private InferenceBuffers buffers;
+
+    /** The distribution reused by processFrameAndGetClassNameWithConfidence */
+    private PredictionDistribution distribution;
+
     /**
      * Constructs a new ModelPredictor object with the given ModelProcessor.
      * 
      * @param modelProcessor the ModelProcessor to use for prediction
      */
     public ModelPredictor(ModelProcessor modelProcessor) {
+        this(modelProcessor, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Constructs a new ModelPredictor object that runs up to maxBatchSize
+     * frames in a single session run.
+     * 
+     * @param modelProcessor the ModelProcessor to use for prediction
+     * @param maxBatchSize the largest number of frames per session run (1 to MAX_BATCH_SIZE)
+     */
+    public ModelPredictor(ModelProcessor modelProcessor, int maxBatchSize) {
+        this(modelProcessor, new TensorFlowBackend(modelProcessor), maxBatchSize);
+    }
+
+    /**
+     * Constructs a new ModelPredictor object that prepares frames with the given
+     * ModelProcessor and runs them on the given backend.
+     * 
+     * @param modelProcessor the ModelProcessor to prepare frames and look up labels with
+     * @param backend the loaded backend to run the model on
+     * @param maxBatchSize the largest number of frames per session run (1 to MAX_BATCH_SIZE)
+     */
+    public ModelPredictor(ModelProcessor modelProcessor, InferenceBackend backend, int maxBatchSize) {
+        if (maxBatchSize < 1 || maxBatchSize > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("maxBatchSize must be between 1 and " + MAX_BATCH_SIZE + ", got " + maxBatchSize);
+        }
+
         this.modelProcessor = modelProcessor;
+        this.backend = backend;
+        this.buffers = new InferenceBuffers(maxBatchSize);
+        this.distribution = new PredictionDistribution(1);
+    }
+
+    /**
+     * Returns the largest number of frames this predictor runs in a single session run.
+     *
+     * @return the maximum batch size
+     */
+    public int getMaxBatchSize() {
+        return buffers.getMaxBatchSize();
     }
     
     /**
@@ -24,16 +86,16 @@ public class ModelPredictor {
      * @return The list of predicted class probabilities.
      */
     public float[] predict(Tensor<Float> tensorInput) {
-        // The name of the input node and output node may vary based on your model. Adjust accordingly.
-        String inputNodeName = modelProcessor.getInputNodeName();
-        String outputNodeName = modelProcessor.getOutputNodeName() + ":0";
+        // The input and output nodes were resolved once when the model was loaded
+        InferencePlan plan = modelProcessor.getInferencePlan();
+
+        long runStart = System.nanoTime();
 
-        try (Tensor<Float> result = modelProcessor.getSession().runner()
-                .feed(inputNodeName, tensorInput)
-                .fetch(outputNodeName)
+        try (Tensor<Float> result = plan.runner(modelProcessor.getSession(), tensorInput)
                 .run()
                 .get(0)
                 .expect(Float.class)) {
+            PipelineMetrics.recordSince(PipelineStage.SESSION_RUN, runStart);
 
             float[][] outputArray = new float[1][(int) result.shape()[1]]; // assuming the output shape is [batch_size, number_of_classes]
             result.copyTo(outputArray);
@@ -42,15 +104,92 @@ public class ModelPredictor {
     }
 
     /**
-     * Process the frame and get the model's prediction.
+     * Process the frame and get the model's prediction. The frame is prepared
+     * in this predictor's preallocated buffers and run on the backend.
      *
      * @param frame The Mat frame to be processed.
-     * @return The list of predicted class probabilities.
+     * @return The reused array of predicted class probabilities, valid until the next prediction.
      */
     public float[] processAndPredict(Mat frame) {
-        float[] floatArrayInput = modelProcessor.prepareFrameForModel(frame);
-        Tensor<Float> tensorInput = modelProcessor.floatArrayToTensor(floatArrayInput);
-        return predict(tensorInput);
+        long preprocessStart = System.nanoTime();
+        FloatBuffer input = modelProcessor.prepareFrameForModel(frame, buffers);
+        PipelineMetrics.recordSince(PipelineStage.PREPROCESS, preprocessStart);
+
+        FloatBuffer output = backend.run(input, 1, buffers);
+
+        // Copy the predictions for the first (and only) frame into the reused array
+        float[] scores = buffers.getScores(output.remaining());
+        output.get(scores);
+        return scores;
+    }
+
+    /**
+     * Processes a frame and fills the given distribution with the top-K classes,
+     * margin, entropy and all probabilities, read in a single pass straight from
+     * the model output.
+     *
+     * @param frame The Mat frame to be processed.
+     * @param distribution The distribution to fill, reused across frames.
+     * @return The filled distribution.
+     */
+    public PredictionDistribution predictDistribution(Mat frame, PredictionDistribution distribution) {
+        long preprocessStart = System.nanoTime();
+        FloatBuffer input = modelProcessor.prepareFrameForModel(frame, buffers);
+        PipelineMetrics.recordSince(PipelineStage.PREPROCESS, preprocessStart);
+
+        FloatBuffer output = backend.run(input, 1, buffers);
+
+        long argmaxStart = System.nanoTime();
+        distribution.update(output, output.remaining(), modelProcessor);
+        PipelineMetrics.recordSince(PipelineStage.ARGMAX, argmaxStart);
+
+        return distribution;
+    }
+
+    /**
+     * Processes several frames and returns one Prediction per frame. Frames are
+     * run through the model in batches of up to getMaxBatchSize(), each batch
+     * as a single [N, 224, 224, 3] tensor in one session run. The per-frame cost
+     * against single-frame calls is measured by the singleFrameCalls and
+     * predictBatch benchmarks in InferenceBenchmark (mvn -Pbenchmark).
+     *
+     * @param frames The Mat frames to be processed.
+     * @return The predictions, in the same order as the frames.
+     */
+    public List<Prediction> predictBatch(List<Mat> frames) {
+        List<Prediction> predictions = new ArrayList<>(frames.size());
+
+        for (int start = 0; start < frames.size(); start += buffers.getMaxBatchSize()) {
+            int end = Math.min(start + buffers.getMaxBatchSize(), frames.size());
+            List<Mat> batch = frames.subList(start, end);
+
+            long preprocessStart = System.nanoTime();
+            FloatBuffer input = modelProcessor.prepareBatchForModel(batch, buffers);
+            PipelineMetrics.recordSince(PipelineStage.PREPROCESS, preprocessStart);
+
+            FloatBuffer output = backend.run(input, batch.size(), buffers);
+            int numClasses = output.remaining() / batch.size();
+            long argmaxStart = System.nanoTime();
+
+            // Read each frame's row of probabilities in place
+            for (int i = 0; i < batch.size(); i++) {
+                int rowStart = i * numClasses;
+                int maxIndex = 0;
+
+                for (int j = 1; j < numClasses; j++) {
+                    if (output.get(rowStart + j) > output.get(rowStart + maxIndex)) {
+                        maxIndex = j;
+                    }
+                }
+
+                predictions.add(new Prediction(modelProcessor.getLabels().get(maxIndex), maxIndex,
+                    modelProcessor.getGesture(maxIndex), output.get(rowStart + maxIndex), null));
+            }
+
+            PipelineMetrics.recordSince(PipelineStage.ARGMAX, argmaxStart);
+        }
+
+        return predictions;
     }
 
     /**
@@ -109,10 +248,17 @@ public class ModelPredictor {
      * @return a Prediction object containing the predicted class name and confidence level
      */
     public Prediction processFrameAndGetClassNameWithConfidence(Mat frame) {
-        float[] predictions = processAndPredict(frame);
-        String className = getPredictedClassName(predictions);
-        float confidence = getPredictedClassConfidence(predictions);
-        return new Prediction(className, confidence);
+        predictDistribution(frame, distribution);
+
+        // Keep a copy of the probabilities, since the distribution is reused for the next frame
+        return distribution.toPrediction();
+    }
+
+    /**
+     * Releases the native memory of this predictor's buffers. The predictor cannot be used afterwards.
+     */
+    public void release() {
+        buffers.release();
     }
 
 }
@@ -3,10 +3,10 @@ package com.codedotorg.modelmanager;
 import java.io.IOException;
 import java.nio.FloatBuffer;
 import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.Iterator;
 import java.util.List;
 
+import org.opencv.core.CvType;
 import org.opencv.core.Mat;
 import org.opencv.core.Size;
 import org.opencv.imgproc.Imgproc;
@@ -18,11 +18,23 @@ import org.tensorflow.Tensor;
 
 public class ModelProcessor {
 
-    /** The path to the directory containing the model */
-    private static final String MODEL_PATH = "src\\main\\java\\com\\codedotorg\\model\\";
+    /** The name of the labels file (should be in the root of the model directory) */
+    private static final String LABELS_FILE = "labels.txt";
 
-    /** The path to the labels.txt file (should be in the root of the model directory) */
-    private static final String LABELS_PATH = MODEL_PATH + "labels.txt";
+    /** The size every frame is resized to before it is passed to the model */
+    private static final Size MODEL_INPUT_SIZE = new Size(InferenceBuffers.INPUT_SIZE, InferenceBuffers.INPUT_SIZE);
+
+    /** The scale that maps pixel values from [0,255] to [0,2] */
+    private static final double NORMALIZE_SCALE = 1.0 / 127.5;
+
+    /** The offset that shifts scaled pixel values from [0,2] to [-1,1] */
+    private static final double NORMALIZE_OFFSET = -1.0;
+
+    /** How frames are normalized before they are passed to the model */
+    private volatile PreprocessingMode preprocessingMode;
+
+    /** The session configuration to load the model with, or null for TensorFlow's defaults */
+    private SessionProfile sessionProfile;
 
     /** Represents the TensorFlow model and its associated variables */
     private SavedModelBundle bundle;
@@ -30,35 +42,129 @@ public class ModelProcessor {
     /** Represents a TensorFlow session, which is used to run the model and make predictions */
     private Session session;
 
+    /** The input and output endpoints of the model, resolved once when it is loaded */
+    private InferencePlan inferencePlan;
+
     /** The list of class labels for the model */
     private List<String> labels;
 
+    /** The gesture of each class, parsed once from the labels */
+    private Gesture[] gestures;
+
     /**
      * Constructs a new ModelProcessor object with null values for bundle and session.
      */
     public ModelProcessor() {
         bundle = null;
         session = null;
+        preprocessingMode = PreprocessingMode.NATIVE;
+    }
+
+    /**
+     * Returns the path to the directory containing the model, which is the
+     * override directory, the packaged model or its extracted copy (see ModelLocator).
+     *
+     * @return the model path
+     */
+    public String getModelPath() {
+        return ModelLocator.locate().toString();
+    }
+
+    /**
+     * Sets the session configuration (thread counts, XLA, optimizer level) used
+     * by the next call to loadModel().
+     *
+     * @param sessionProfile the profile to load the model with, or null for TensorFlow's defaults
+     */
+    public void setSessionProfile(SessionProfile sessionProfile) {
+        this.sessionProfile = sessionProfile;
+    }
+
+    /**
+     * Returns how frames are normalized before they are passed to the model.
+     *
+     * @return the preprocessing mode
+     */
+    public PreprocessingMode getPreprocessingMode() {
+        return preprocessingMode;
+    }
+
+    /**
+     * Sets how frames are normalized before they are passed to the model.
+     *
+     * @param preprocessingMode the preprocessing mode to use
+     */
+    public void setPreprocessingMode(PreprocessingMode preprocessingMode) {
+        this.preprocessingMode = preprocessingMode;
     }
     
     /**
-     * Loads a saved model from the specified path and creates a session.
+     * Loads a saved model from the specified path, creates a session and resolves
+     * the inference plan used for every prediction.
      * Prints a message to the console if the model is loaded successfully.
-     * Prints an error message and stack trace to the console if the model fails to load.
+     *
+     * @throws IllegalStateException if the model fails to load, with the TensorFlow error
+     *     as the cause, or if the input or output of the model cannot be found
      */
     public void loadModel() {
+        String modelPath = getModelPath();
+
         try {
-            // Load the TensorFlow model from the MODEL_PATH directory and create a new
+            // Load the TensorFlow model from the model directory and create a new
             // SavedModelBundle object. "serve" specifies the model signature name.
-            bundle = SavedModelBundle.load(MODEL_PATH, "serve");
+            if (sessionProfile == null) {
+                bundle = SavedModelBundle.load(modelPath, "serve");
+            }
+            else {
+                bundle = SavedModelBundle.loader(modelPath)
+                    .withTags("serve")
+                    .withConfigProto(sessionProfile.toConfigProto())
+                    .load();
+            }
 
             // Sets the session to a new Session object to run the TensorFlow model and make predictions
             session = bundle.session();
             System.out.println("Model loaded successfully");
         } catch (Exception e) {
-            System.err.println("Failed to load the model");
-            e.printStackTrace();
+            throw new IllegalStateException("Failed to load the model from " + modelPath, e);
+        }
+
+        // Resolve the input and output once so the hot path never scans the graph
+        inferencePlan = resolveInferencePlan();
+    }
+
+    /**
+     * Resolves the input and output endpoints of the loaded model from its
+     * serving_default signature, falling back to searching the graph for
+     * operation names when the model has no usable signature.
+     *
+     * @return the resolved inference plan
+     * @throws IllegalStateException if the model is not loaded or the endpoints cannot be found
+     */
+    public InferencePlan resolveInferencePlan() {
+        if (bundle == null) {
+            throw new IllegalStateException("Cannot resolve the model input and output: the model is not loaded");
         }
+
+        // Prefer the exact tensor names recorded in the SavedModel signature
+        InferencePlan plan = InferencePlan.fromSignature(bundle.metaGraphDef());
+
+        if (plan == null) {
+            // Fall back to finding the nodes by name in the graph
+            plan = new InferencePlan(getInputNodeName(), 0, getOutputNodeName(), 0, "heuristic");
+        }
+
+        plan.validate(bundle.graph());
+        return plan;
+    }
+
+    /**
+     * Returns the inference plan resolved when the model was loaded.
+     *
+     * @return the inference plan
+     */
+    public InferencePlan getInferencePlan() {
+        return inferencePlan;
     }
 
     /**
@@ -109,21 +215,24 @@ public class ModelProcessor {
     }
 
     /**
-     * Reads all the lines from the file specified by LABELS_PATH and stores them in the labels list.
+     * Reads all the lines from the labels.txt file in the model directory and stores them in the labels list.
      * Prints a success message and the labels list if the operation is successful.
-     * Prints an error message and the stack trace if the operation fails.
+     *
+     * @throws IllegalStateException if the labels cannot be read, with the I/O error as the cause
      */
     public void loadLabels() {
         try {
             // Read all the lines from the labels.txt file and returns them as a list of strings
-            // Paths.get() creates a Path object representing the path to the labels file
-            labels = Files.readAllLines(Paths.get(LABELS_PATH));
+            // ModelLocator finds the model directory, extracting the packaged model if needed
+            labels = Files.readAllLines(ModelLocator.locate().resolve(LABELS_FILE));
+
+            // Parse the gestures once so predictions never parse label strings
+            gestures = Gesture.fromLabels(labels);
             
             System.out.println("Labels loaded successfully");
             System.out.println("Labels: " + labels);
         } catch (IOException e) {
-            System.err.println("Failed to load the labels");
-            e.printStackTrace();
+            throw new IllegalStateException("Failed to load the labels", e);
         }
     }
 
@@ -136,6 +245,26 @@ public class ModelProcessor {
         return session;
     }
 
+    /**
+     * Returns the graph of the loaded model.
+     *
+     * @return the graph, or null if the model is not loaded
+     */
+    public Graph getGraph() {
+        return bundle == null ? null : bundle.graph();
+    }
+
+    /**
+     * Closes the loaded model and its session.
+     */
+    public void close() {
+        if (bundle != null) {
+            bundle.close();
+            bundle = null;
+            session = null;
+        }
+    }
+
     /**
      * Returns a list of labels for the model.
      *
@@ -145,14 +274,24 @@ public class ModelProcessor {
         return labels;
     }
 
+    /**
+     * Returns the gesture of the class with the given index.
+     *
+     * @param classIndex the index of the class in the labels
+     * @return the gesture of the class
+     */
+    public Gesture getGesture(int classIndex) {
+        return gestures[classIndex];
+    }
+
     /**
      * Resizes the given Mat frame to the specified dimensions.
      *
      * @param frame The original Mat frame.
-     * @return The resized Mat frame.
+     * @return The resized Mat frame, owned by the caller, who must pass it to NativeResources.release().
      */
     public Mat resizeFrame(Mat frame) {
-        Mat resized = new Mat();
+        Mat resized = NativeResources.newMat();
         Imgproc.resize(frame, resized, new Size(224, 224)); // resize to 224x224
         return resized;
     }
@@ -191,19 +330,108 @@ public class ModelProcessor {
      */
     public float[] prepareFrameForModel(Mat frame) {
         Mat resizedFrame = resizeFrame(frame);
-        byte[] byteArray = matToByteArray(resizedFrame);
-        return byteArrayToFloatArray(byteArray);
+
+        try {
+            byte[] byteArray = matToByteArray(resizedFrame);
+            return byteArrayToFloatArray(byteArray);
+        } finally {
+            NativeResources.release(resizedFrame);
+        }
     }
 
     /**
      * Converts the float array to a TensorFlow Tensor.
      *
      * @param floatArray The float array to convert.
-     * @return A Tensor representing the input data.
+     * @return A Tensor representing the input data, owned by the caller, who must pass it to NativeResources.close().
      */
     public Tensor<Float> floatArrayToTensor(float[] floatArray) {
         long[] shape = {1, 224, 224, 3}; // assuming the model expects input shape as [batch_size, height, width, channels]
-        return Tensor.create(shape, FloatBuffer.wrap(floatArray));
+        return NativeResources.track(Tensor.create(shape, FloatBuffer.wrap(floatArray)));
+    }
+
+    /**
+     * Prepares the Mat frame for model input using preallocated buffers, so the
+     * steady state does not allocate any arrays on the Java heap. In NATIVE mode
+     * the resize, BGR to RGB conversion and normalization all run in OpenCV and
+     * write straight into the direct buffer backing the input tensor.
+     *
+     * @param frame The Mat frame to prepare.
+     * @param buffers The buffers of the worker preparing the frame.
+     * @return The direct buffer holding the normalized frame, ready to be read.
+     */
+    public FloatBuffer prepareFrameForModel(Mat frame, InferenceBuffers buffers) {
+        prepareFrameIntoSlot(frame, buffers, 0);
+
+        FloatBuffer input = buffers.getInput();
+        input.clear();
+        input.limit(InferenceBuffers.FRAME_FLOATS);
+        return input;
+    }
+
+    /**
+     * Prepares several Mat frames as one batch of model input.
+     *
+     * @param frames The Mat frames to prepare (at most the buffers' maximum batch size).
+     * @param buffers The buffers of the worker preparing the frames.
+     * @return The direct buffer holding the normalized frames one after another, ready to be read.
+     */
+    public FloatBuffer prepareBatchForModel(List<Mat> frames, InferenceBuffers buffers) {
+        if (frames.size() > buffers.getMaxBatchSize()) {
+            throw new IllegalArgumentException("Batch of " + frames.size() + " frames exceeds the maximum of " + buffers.getMaxBatchSize());
+        }
+
+        for (int i = 0; i < frames.size(); i++) {
+            prepareFrameIntoSlot(frames.get(i), buffers, i);
+        }
+
+        FloatBuffer input = buffers.getInput();
+        input.clear();
+        input.limit(frames.size() * InferenceBuffers.FRAME_FLOATS);
+        return input;
+    }
+
+    /**
+     * Resizes, converts and normalizes one frame into the given batch slot of the input buffer.
+     *
+     * @param frame The Mat frame to prepare.
+     * @param buffers The buffers of the worker preparing the frame.
+     * @param slot The index of the frame in the batch.
+     */
+    private void prepareFrameIntoSlot(Mat frame, InferenceBuffers buffers, int slot) {
+        // Resize into the reused Mat and convert from OpenCV's BGR order to the RGB the model was trained on
+        Mat resized = buffers.getResized();
+        Imgproc.resize(frame, resized, MODEL_INPUT_SIZE);
+        Imgproc.cvtColor(resized, resized, Imgproc.COLOR_BGR2RGB);
+
+        if (preprocessingMode == PreprocessingMode.NATIVE) {
+            // Normalize to [-1,1] into the float Mat that shares memory with the slot of the input buffer
+            resized.convertTo(buffers.getNormalized(slot), CvType.CV_32FC3, NORMALIZE_SCALE, NORMALIZE_OFFSET);
+            return;
+        }
+
+        // Copy the pixels into the reused array and normalize them to [-1,1] with a Java loop
+        byte[] pixels = buffers.getPixels();
+        resized.get(0, 0, pixels);
+
+        FloatBuffer input = buffers.getInput();
+        int offset = slot * InferenceBuffers.FRAME_FLOATS;
+        for (int i = 0; i < pixels.length; i++) {
+            input.put(offset + i, ((pixels[i] & 0xFF) - 127.5f) / 127.5f);
+        }
+    }
+
+    /**
+     * Converts the prepared input buffer to a TensorFlow Tensor with one entry
+     * per prepared frame. The caller owns the returned Tensor and must close it.
+     *
+     * @param input The buffer returned by prepareFrameForModel or prepareBatchForModel.
+     * @param buffers The buffers of the worker that prepared the input.
+     * @return A Tensor representing the input data, to be passed to NativeResources.close().
+     */
+    public Tensor<Float> floatBufferToTensor(FloatBuffer input, InferenceBuffers buffers) {
+        int batchSize = input.remaining() / InferenceBuffers.FRAME_FLOATS;
+        return NativeResources.track(Tensor.create(buffers.getInputShape(batchSize), input));
     }
 
 }
@@ -0,0 +1,133 @@
+package com.codedotorg.modelmanager;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+public class MotionGate {
+
+    /** The default mean per-pixel difference (0 to 255) below which a frame counts as unchanged */
+    public static final double DEFAULT_THRESHOLD = 2.0;
+
+    /** The default longest time a prediction is reused before the model runs again */
+    public static final long DEFAULT_MAX_STALENESS_MILLIS = 1000;
+
+    /** The size of the grayscale thumbnails that are compared */
+    private static final Size THUMBNAIL_SIZE = new Size(32, 24);
+
+    /** The mean per-pixel difference below which a frame counts as unchanged */
+    private final double threshold;
+
+    /** The longest time a prediction is reused, in nanoseconds */
+    private final long maxStalenessNanos;
+
+    /** The reused downsampled color copy of the frame */
+    private final Mat small;
+
+    /** The reused grayscale thumbnail of the current frame */
+    private final Mat gray;
+
+    /** The grayscale thumbnail of the last frame the model ran on */
+    private final Mat reference;
+
+    /** The prediction of the last frame the model ran on */
+    private Prediction lastPrediction;
+
+    /** When the model last ran */
+    private long lastInferenceNanos;
+
+    /** The mean per-pixel difference of the last compared frame */
+    private double lastDifference;
+
+    /**
+     * Constructs a new MotionGate with the default threshold and staleness.
+     */
+    public MotionGate() {
+        this(DEFAULT_THRESHOLD, DEFAULT_MAX_STALENESS_MILLIS);
+    }
+
+    /**
+     * Constructs a new MotionGate.
+     *
+     * @param threshold the mean per-pixel difference (0 to 255) below which a frame counts as unchanged
+     * @param maxStalenessMillis the longest time a prediction is reused before the model runs again
+     */
+    public MotionGate(double threshold, long maxStalenessMillis) {
+        this.threshold = threshold;
+        this.maxStalenessNanos = maxStalenessMillis * 1_000_000;
+        small = NativeResources.newMat();
+        gray = NativeResources.newMat();
+        reference = NativeResources.newMat();
+        lastPrediction = null;
+    }
+
+    /**
+     * Compares a small grayscale copy of the frame with the last frame the model
+     * ran on. Must be called from a single thread.
+     *
+     * @param frame the BGR frame to check
+     * @param nowNanos the current System.nanoTime()
+     * @return true if the model should run on the frame, false if the last prediction can be reused
+     */
+    public boolean shouldInfer(Mat frame, long nowNanos) {
+        // Shrink the frame to a tiny grayscale thumbnail
+        Imgproc.resize(frame, small, THUMBNAIL_SIZE, 0, 0, Imgproc.INTER_AREA);
+        Imgproc.cvtColor(small, gray, Imgproc.COLOR_BGR2GRAY);
+
+        if (lastPrediction == null || reference.empty() || nowNanos - lastInferenceNanos >= maxStalenessNanos) {
+            return true;
+        }
+
+        // The L1 norm of the difference divided by the pixel count is the mean absolute difference
+        lastDifference = Core.norm(gray, reference, Core.NORM_L1) / gray.total();
+        return lastDifference >= threshold;
+    }
+
+    /**
+     * Remembers the frame last passed to shouldInfer() and the model's prediction for it.
+     *
+     * @param prediction the prediction made for the frame
+     * @param nowNanos the current System.nanoTime()
+     */
+    public void recordInference(Prediction prediction, long nowNanos) {
+        gray.copyTo(reference);
+        lastPrediction = prediction;
+        lastInferenceNanos = nowNanos;
+    }
+
+    /**
+     * Returns the prediction of the last frame the model ran on.
+     *
+     * @return the last prediction, or null if the model has not run yet
+     */
+    public Prediction getLastPrediction() {
+        return lastPrediction;
+    }
+
+    /**
+     * Returns the mean per-pixel difference of the last compared frame.
+     *
+     * @return the last difference (0 to 255)
+     */
+    public double getLastDifference() {
+        return lastDifference;
+    }
+
+    /**
+     * Forgets the last frame and prediction so the next frame always runs the model.
+     */
+    public void reset() {
+        lastPrediction = null;
+    }
+
+    /**
+     * Releases the native memory of the thumbnails. The gate cannot be used afterwards.
+     */
+    public void release() {
+        NativeResources.release(small);
+        NativeResources.release(gray);
+        NativeResources.release(reference);
+    }
+
+}
@@ -0,0 +1,11 @@
+package com.codedotorg.modelmanager;
+
+public enum NativeResource {
+
+    /** OpenCV Mats, whose pixels live in native memory */
+    MAT,
+
+    /** TensorFlow Tensors, whose data lives in native memory */
+    TENSOR
+
+}
@@ -0,0 +1,40 @@
+package com.codedotorg.modelmanager;
+
+public class NativeResourceCounters implements NativeResourceCountersMBean {
+
+    @Override
+    public long getMatsAllocated() {
+        return NativeResources.getAllocated(NativeResource.MAT);
+    }
+
+    @Override
+    public long getMatsReleased() {
+        return NativeResources.getReleased(NativeResource.MAT);
+    }
+
+    @Override
+    public long getLiveMats() {
+        return NativeResources.getLive(NativeResource.MAT);
+    }
+
+    @Override
+    public long getTensorsAllocated() {
+        return NativeResources.getAllocated(NativeResource.TENSOR);
+    }
+
+    @Override
+    public long getTensorsReleased() {
+        return NativeResources.getReleased(NativeResource.TENSOR);
+    }
+
+    @Override
+    public long getLiveTensors() {
+        return NativeResources.getLive(NativeResource.TENSOR);
+    }
+
+    @Override
+    public long getResidentBytes() {
+        return NativeResources.getResidentBytes();
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.codedotorg.modelmanager;
+
+public interface NativeResourceCountersMBean {
+
+    /**
+     * Returns the number of Mats allocated by the pipeline.
+     *
+     * @return the number of allocated Mats
+     */
+    long getMatsAllocated();
+
+    /**
+     * Returns the number of Mats released by the pipeline.
+     *
+     * @return the number of released Mats
+     */
+    long getMatsReleased();
+
+    /**
+     * Returns the number of Mats that have not been released.
+     *
+     * @return the number of live Mats
+     */
+    long getLiveMats();
+
+    /**
+     * Returns the number of Tensors created by the pipeline.
+     *
+     * @return the number of allocated Tensors
+     */
+    long getTensorsAllocated();
+
+    /**
+     * Returns the number of Tensors closed by the pipeline.
+     *
+     * @return the number of released Tensors
+     */
+    long getTensorsReleased();
+
+    /**
+     * Returns the number of Tensors that have not been closed.
+     *
+     * @return the number of live Tensors
+     */
+    long getLiveTensors();
+
+    /**
+     * Returns the resident set size of the process, including native memory.
+     *
+     * @return the resident set size in bytes, or -1 if not available
+     */
+    long getResidentBytes();
+
+}
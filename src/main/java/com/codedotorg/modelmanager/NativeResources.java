@@ -0,0 +1,170 @@
+package com.codedotorg.modelmanager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.opencv.core.Mat;
+import org.tensorflow.Tensor;
+
+public final class NativeResources {
+
+    /** The Linux file the resident set size of the process is read from */
+    private static final Path PROC_STATUS = Paths.get("/proc/self/status");
+
+    /** The number of allocations of each resource, indexed by ordinal */
+    private static final LongAdder[] ALLOCATED = new LongAdder[NativeResource.values().length];
+
+    /** The number of releases of each resource, indexed by ordinal */
+    private static final LongAdder[] RELEASED = new LongAdder[NativeResource.values().length];
+
+    static {
+        for (int i = 0; i < ALLOCATED.length; i++) {
+            ALLOCATED[i] = new LongAdder();
+            RELEASED[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * NativeResources only has static members.
+     */
+    private NativeResources() {
+    }
+
+    /**
+     * Allocates an empty Mat and counts it. The caller owns the Mat and must pass it to release().
+     *
+     * @return the new Mat
+     */
+    public static Mat newMat() {
+        return track(new Mat());
+    }
+
+    /**
+     * Allocates a Mat wrapping the given direct buffer and counts it. The caller owns
+     * the Mat and must pass it to release() before the buffer is dropped.
+     *
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @param type the OpenCV type, such as CvType.CV_8UC3
+     * @param data the direct buffer holding the pixels
+     * @return the new Mat
+     */
+    public static Mat newMat(int rows, int cols, int type, ByteBuffer data) {
+        return track(new Mat(rows, cols, type, data));
+    }
+
+    /**
+     * Counts a Mat created elsewhere, such as a MatOfByte. The caller owns the Mat
+     * and must pass it to release().
+     *
+     * @param mat the Mat to count
+     * @return the same Mat
+     */
+    public static <M extends Mat> M track(M mat) {
+        ALLOCATED[NativeResource.MAT.ordinal()].increment();
+        return mat;
+    }
+
+    /**
+     * Releases the native memory of a counted Mat.
+     *
+     * @param mat the Mat to release, or null
+     */
+    public static void release(Mat mat) {
+        if (mat != null) {
+            mat.release();
+            RELEASED[NativeResource.MAT.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Counts a Tensor. The caller owns the Tensor and must pass it to close().
+     *
+     * @param tensor the Tensor to count
+     * @return the same Tensor
+     */
+    public static <T> Tensor<T> track(Tensor<T> tensor) {
+        ALLOCATED[NativeResource.TENSOR.ordinal()].increment();
+        return tensor;
+    }
+
+    /**
+     * Frees the native memory of a counted Tensor.
+     *
+     * @param tensor the Tensor to close, or null
+     */
+    public static void close(Tensor<?> tensor) {
+        if (tensor != null) {
+            tensor.close();
+            RELEASED[NativeResource.TENSOR.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Returns the number of allocations of the given resource.
+     *
+     * @param resource the resource type
+     * @return the number of allocations
+     */
+    public static long getAllocated(NativeResource resource) {
+        return ALLOCATED[resource.ordinal()].sum();
+    }
+
+    /**
+     * Returns the number of releases of the given resource.
+     *
+     * @param resource the resource type
+     * @return the number of releases
+     */
+    public static long getReleased(NativeResource resource) {
+        return RELEASED[resource.ordinal()].sum();
+    }
+
+    /**
+     * Returns the number of allocated resources that have not been released. It stays
+     * flat while the pipeline runs; a steady climb is a leak.
+     *
+     * @param resource the resource type
+     * @return the number of live resources
+     */
+    public static long getLive(NativeResource resource) {
+        return getAllocated(resource) - getReleased(resource);
+    }
+
+    /**
+     * Returns the resident set size of the process, which includes the native memory
+     * that the Java heap statistics do not show.
+     *
+     * @return the resident set size in bytes, or -1 if not available on this platform
+     */
+    public static long getResidentBytes() {
+        try {
+            for (String line : Files.readAllLines(PROC_STATUS)) {
+                if (line.startsWith("VmRSS:")) {
+                    // The line looks like "VmRSS:    123456 kB"
+                    String kilobytes = line.substring("VmRSS:".length()).replace("kB", "").trim();
+                    return Long.parseLong(kilobytes) * 1024;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not Linux, or /proc is not mounted
+        }
+
+        return -1;
+    }
+
+    /**
+     * Prints the allocations, releases and live count of every resource to the console.
+     */
+    public static void print() {
+        for (NativeResource resource : NativeResource.values()) {
+            System.out.println(resource + ": allocated=" + getAllocated(resource)
+                + ", released=" + getReleased(resource) + ", live=" + getLive(resource));
+        }
+    }
+
+}
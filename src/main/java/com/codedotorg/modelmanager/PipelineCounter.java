@@ -0,0 +1,32 @@
+package com.codedotorg.modelmanager;
+
+public enum PipelineCounter {
+
+    /** Frames read from the frame source */
+    FRAMES_CAPTURED,
+
+    /** Frames replaced by a newer frame before inference took them */
+    FRAMES_DROPPED,
+
+    /** Frames turned away by the model because every inference worker stayed busy */
+    FRAMES_REJECTED,
+
+    /** Frames taken by the inference thread */
+    FRAMES_INFERRED,
+
+    /** Frames that reused the previous prediction because the scene had not changed */
+    INFERENCES_SKIPPED,
+
+    /** Failed frame reads */
+    CAPTURE_ERRORS,
+
+    /** Predictions that threw an exception */
+    INFERENCE_ERRORS,
+
+    /** Preview frames shown on a JavaFX pulse */
+    PREVIEW_RENDERED,
+
+    /** Preview frames replaced by a newer frame before a pulse showed them */
+    PREVIEW_SKIPPED
+
+}
@@ -0,0 +1,63 @@
+package com.codedotorg.modelmanager;
+
+public class PipelineCounters implements PipelineCountersMBean {
+
+    @Override
+    public long getFramesCaptured() {
+        return PipelineMetrics.get(PipelineCounter.FRAMES_CAPTURED);
+    }
+
+    @Override
+    public long getFramesDropped() {
+        return PipelineMetrics.get(PipelineCounter.FRAMES_DROPPED);
+    }
+
+    @Override
+    public long getFramesRejected() {
+        return PipelineMetrics.get(PipelineCounter.FRAMES_REJECTED);
+    }
+
+    @Override
+    public long getFramesInferred() {
+        return PipelineMetrics.get(PipelineCounter.FRAMES_INFERRED);
+    }
+
+    @Override
+    public long getInferencesSkipped() {
+        return PipelineMetrics.get(PipelineCounter.INFERENCES_SKIPPED);
+    }
+
+    @Override
+    public double getSkipRatio() {
+        long inferred = getFramesInferred();
+        return inferred == 0 ? 0 : (double) getInferencesSkipped() / inferred;
+    }
+
+    @Override
+    public double getEstimatedSavedMillis() {
+        double meanNanos = PipelineMetrics.stage(PipelineStage.PREPROCESS).getMeanNanos()
+            + PipelineMetrics.stage(PipelineStage.SESSION_RUN).getMeanNanos();
+        return getInferencesSkipped() * meanNanos / 1e6;
+    }
+
+    @Override
+    public long getCaptureErrors() {
+        return PipelineMetrics.get(PipelineCounter.CAPTURE_ERRORS);
+    }
+
+    @Override
+    public long getInferenceErrors() {
+        return PipelineMetrics.get(PipelineCounter.INFERENCE_ERRORS);
+    }
+
+    @Override
+    public long getPreviewRendered() {
+        return PipelineMetrics.get(PipelineCounter.PREVIEW_RENDERED);
+    }
+
+    @Override
+    public long getPreviewSkipped() {
+        return PipelineMetrics.get(PipelineCounter.PREVIEW_SKIPPED);
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.codedotorg.modelmanager;
+
+public interface PipelineCountersMBean {
+
+    /**
+     * Returns the number of frames read from the frame source.
+     *
+     * @return the number of captured frames
+     */
+    long getFramesCaptured();
+
+    /**
+     * Returns the number of frames replaced by a newer frame before inference took them.
+     *
+     * @return the number of dropped frames
+     */
+    long getFramesDropped();
+
+    /**
+     * Returns the number of frames turned away by the model because every inference worker stayed busy.
+     *
+     * @return the number of rejected frames
+     */
+    long getFramesRejected();
+
+    /**
+     * Returns the number of frames taken by the inference thread.
+     *
+     * @return the number of inferred frames
+     */
+    long getFramesInferred();
+
+    /**
+     * Returns the number of frames that reused the previous prediction because the scene had not changed.
+     *
+     * @return the number of skipped inferences
+     */
+    long getInferencesSkipped();
+
+    /**
+     * Returns the fraction of inferred frames that reused the previous prediction.
+     *
+     * @return the skip ratio between 0 and 1
+     */
+    double getSkipRatio();
+
+    /**
+     * Returns an estimate of the inference time saved by skipping unchanged frames,
+     * based on the mean preprocessing and session run latencies.
+     *
+     * @return the estimated saved time in milliseconds
+     */
+    double getEstimatedSavedMillis();
+
+    /**
+     * Returns the number of failed frame reads.
+     *
+     * @return the number of capture errors
+     */
+    long getCaptureErrors();
+
+    /**
+     * Returns the number of predictions that threw an exception.
+     *
+     * @return the number of inference errors
+     */
+    long getInferenceErrors();
+
+    /**
+     * Returns the number of preview frames shown on a JavaFX pulse.
+     *
+     * @return the number of rendered preview frames
+     */
+    long getPreviewRendered();
+
+    /**
+     * Returns the number of preview frames replaced by a newer frame before a pulse showed them.
+     *
+     * @return the number of skipped preview frames
+     */
+    long getPreviewSkipped();
+
+}
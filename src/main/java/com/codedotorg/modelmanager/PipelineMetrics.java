@@ -0,0 +1,125 @@
+package com.codedotorg.modelmanager;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public final class PipelineMetrics {
+
+    /** The JMX domain the pipeline MBeans are registered under */
+    public static final String JMX_DOMAIN = "com.codedotorg.guessinggame";
+
+    /** The latency histogram of each stage, indexed by ordinal */
+    private static final LatencyHistogram[] STAGES = new LatencyHistogram[PipelineStage.values().length];
+
+    /** The value of each counter, indexed by ordinal */
+    private static final LongAdder[] COUNTERS = new LongAdder[PipelineCounter.values().length];
+
+    static {
+        for (int i = 0; i < STAGES.length; i++) {
+            STAGES[i] = new LatencyHistogram();
+        }
+
+        for (int i = 0; i < COUNTERS.length; i++) {
+            COUNTERS[i] = new LongAdder();
+        }
+
+        registerMBeans();
+    }
+
+    /**
+     * PipelineMetrics only has static members.
+     */
+    private PipelineMetrics() {
+    }
+
+    /**
+     * Returns the latency histogram of the given stage.
+     *
+     * @param stage the pipeline stage
+     * @return the histogram of the stage
+     */
+    public static LatencyHistogram stage(PipelineStage stage) {
+        return STAGES[stage.ordinal()];
+    }
+
+    /**
+     * Records the time elapsed since the given System.nanoTime() value for a stage.
+     * Does not allocate or lock, so it can be called on the capture and inference threads.
+     *
+     * @param stage the pipeline stage
+     * @param startNanos the System.nanoTime() at which the stage started
+     */
+    public static void recordSince(PipelineStage stage, long startNanos) {
+        STAGES[stage.ordinal()].recordSince(startNanos);
+    }
+
+    /**
+     * Adds one to the given counter.
+     *
+     * @param counter the counter to increment
+     */
+    public static void increment(PipelineCounter counter) {
+        COUNTERS[counter.ordinal()].increment();
+    }
+
+    /**
+     * Returns the current value of the given counter.
+     *
+     * @param counter the counter to read
+     * @return the value of the counter
+     */
+    public static long get(PipelineCounter counter) {
+        return COUNTERS[counter.ordinal()].sum();
+    }
+
+    /**
+     * Prints every stage and counter to the console.
+     */
+    public static void print() {
+        for (PipelineStage stage : PipelineStage.values()) {
+            System.out.println(stage.getDisplayName() + ": " + stage(stage));
+        }
+
+        for (PipelineCounter counter : PipelineCounter.values()) {
+            System.out.println(counter + ": " + get(counter));
+        }
+
+        NativeResources.print();
+    }
+
+    /**
+     * Registers one MBean per stage, one for the counters and one for the native
+     * resource counts with the platform MBean server, so they can be watched with
+     * JConsole or any JMX client.
+     */
+    private static void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            for (PipelineStage stage : PipelineStage.values()) {
+                ObjectName name = new ObjectName(JMX_DOMAIN + ":type=Stage,name=" + stage.getDisplayName());
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(new StageMetrics(stage(stage)), name);
+                }
+            }
+
+            ObjectName countersName = new ObjectName(JMX_DOMAIN + ":type=Counters,name=Pipeline");
+            if (!server.isRegistered(countersName)) {
+                server.registerMBean(new PipelineCounters(), countersName);
+            }
+
+            ObjectName resourcesName = new ObjectName(JMX_DOMAIN + ":type=Resources,name=Native");
+            if (!server.isRegistered(resourcesName)) {
+                server.registerMBean(new NativeResourceCounters(), resourcesName);
+            }
+        } catch (JMException e) {
+            System.err.println("Failed to register the pipeline metrics MBeans");
+            e.printStackTrace();
+        }
+    }
+
+}
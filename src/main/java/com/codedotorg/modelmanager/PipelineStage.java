@@ -0,0 +1,44 @@
+package com.codedotorg.modelmanager;
+
+public enum PipelineStage {
+
+    /** Reading a frame from the camera or another frame source */
+    CAMERA_READ("CameraRead"),
+
+    /** Resizing, converting and normalizing a frame for the model */
+    PREPROCESS("Preprocess"),
+
+    /** Running the TensorFlow session */
+    SESSION_RUN("SessionRun"),
+
+    /** Finding the most likely class in the model output */
+    ARGMAX("Argmax"),
+
+    /** Converting a frame into an image for the camera view */
+    PREVIEW_CONVERT("PreviewConvert"),
+
+    /** Waiting for the next JavaFX pulse to show the published preview frame */
+    FX_DELIVERY("FxDelivery");
+
+    /** The name used for the stage's MBean */
+    private final String displayName;
+
+    /**
+     * Constructs a PipelineStage with the given display name.
+     *
+     * @param displayName the name used for the stage's MBean
+     */
+    PipelineStage(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * Returns the name used for the stage's MBean.
+     *
+     * @return the display name
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+}
@@ -5,9 +5,24 @@ public class Prediction {
     /** The name of the predicted class */
     private final String className;
 
+    /** The index of the predicted class in the labels, or -1 if not known */
+    private final int classIndex;
+
+    /** The gesture of the predicted class */
+    private final Gesture gesture;
+
     /** The confidence score of the prediction */
     private final float confidence;
 
+    /** The probability of every class, or null if not available */
+    private final float[] scores;
+
+    /** The sequence number of the frame the prediction was made from, or -1 if not known */
+    private final long sequence;
+
+    /** When the frame the prediction was made from was captured, in System.nanoTime() units */
+    private final long timestampNanos;
+
     /**
      * Constructs a Prediction object with the given class name and confidence value.
      * 
@@ -15,8 +30,65 @@ public class Prediction {
      * @param confidence the confidence value of the prediction
      */
     public Prediction(String className, float confidence) {
+        this(className, confidence, null);
+    }
+
+    /**
+     * Constructs a Prediction object with the given class name, confidence value
+     * and the probabilities of every class.
+     * 
+     * @param className the name of the predicted class
+     * @param confidence the confidence value of the prediction
+     * @param scores the probability of every class (not copied, must not be modified afterwards)
+     */
+    public Prediction(String className, float confidence, float[] scores) {
+        this(className, -1, Gesture.fromLabel(className), confidence, scores);
+    }
+
+    /**
+     * Constructs a Prediction object for a class whose gesture was parsed when the labels were loaded.
+     * 
+     * @param className the name of the predicted class
+     * @param classIndex the index of the predicted class in the labels
+     * @param gesture the gesture of the predicted class
+     * @param confidence the confidence value of the prediction
+     * @param scores the probability of every class (not copied, must not be modified afterwards), or null
+     */
+    public Prediction(String className, int classIndex, Gesture gesture, float confidence, float[] scores) {
+        this(className, classIndex, gesture, confidence, scores, -1, System.nanoTime());
+    }
+
+    /**
+     * Constructs a Prediction object made from a numbered, timestamped frame.
+     * 
+     * @param className the name of the predicted class
+     * @param classIndex the index of the predicted class in the labels
+     * @param gesture the gesture of the predicted class
+     * @param confidence the confidence value of the prediction
+     * @param scores the probability of every class (not copied, must not be modified afterwards), or null
+     * @param sequence the sequence number of the frame
+     * @param timestampNanos when the frame was captured, in System.nanoTime() units
+     */
+    public Prediction(String className, int classIndex, Gesture gesture, float confidence, float[] scores,
+            long sequence, long timestampNanos) {
         this.className = className;
+        this.classIndex = classIndex;
+        this.gesture = gesture;
         this.confidence = confidence;
+        this.scores = scores;
+        this.sequence = sequence;
+        this.timestampNanos = timestampNanos;
+    }
+
+    /**
+     * Returns a copy of this prediction stamped with the frame it was made from.
+     * 
+     * @param sequence the sequence number of the frame
+     * @param timestampNanos when the frame was captured, in System.nanoTime() units
+     * @return the stamped prediction
+     */
+    public Prediction stamp(long sequence, long timestampNanos) {
+        return new Prediction(className, classIndex, gesture, confidence, scores, sequence, timestampNanos);
     }
 
     /**
@@ -28,6 +100,24 @@ public class Prediction {
         return className;
     }
 
+    /**
+     * Returns the index of the predicted class in the labels.
+     * 
+     * @return the class index, or -1 if the prediction was made from a class name only
+     */
+    public int getClassIndex() {
+        return classIndex;
+    }
+
+    /**
+     * Returns the gesture of the predicted class.
+     * 
+     * @return the gesture
+     */
+    public Gesture getGesture() {
+        return gesture;
+    }
+
     /**
      * Returns the confidence level of the prediction.
      * 
@@ -37,6 +127,46 @@ public class Prediction {
         return confidence;
     }
 
+    /**
+     * Returns a copy of the probability of every class, in the order of the labels.
+     * The prediction is shared by every subscriber, so its own array is never handed out.
+     * 
+     * @return the class probabilities, or null if the prediction does not have them
+     */
+    public float[] getScores() {
+        return scores == null ? null : scores.clone();
+    }
+
+    /**
+     * Returns the probability of every class without copying it, for code in this
+     * package that only reads it on the per-frame path.
+     * 
+     * @return the class probabilities, which must not be modified, or null
+     */
+    float[] scores() {
+        return scores;
+    }
+
+    /**
+     * Returns the sequence number of the frame the prediction was made from.
+     * Predictions with a higher sequence number were made from newer frames.
+     * 
+     * @return the sequence number, or -1 if not known
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns when the frame the prediction was made from was captured, or when the
+     * prediction was created if it was not stamped with a frame.
+     * 
+     * @return the timestamp in System.nanoTime() units
+     */
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
     /**
      * Returns a string representation of the Prediction object.
      * 
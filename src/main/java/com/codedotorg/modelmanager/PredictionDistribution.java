@@ -0,0 +1,243 @@
+package com.codedotorg.modelmanager;
+
+import java.nio.FloatBuffer;
+import java.util.List;
+
+public class PredictionDistribution {
+
+    /** The number of ranked classes kept by default */
+    public static final int DEFAULT_TOP_K = 3;
+
+    /** The largest number of classes that can be ranked */
+    private final int capacity;
+
+    /** The class indices of the ranked classes, most likely first */
+    private final int[] topIndices;
+
+    /** The probabilities of the ranked classes, most likely first */
+    private final float[] topScores;
+
+    /** The probability of every class, reused for every update */
+    private float[] scores;
+
+    /** The number of classes in the last update */
+    private int numClasses;
+
+    /** The number of ranked classes in the last update */
+    private int count;
+
+    /** The entropy of the last distribution, in nats */
+    private float entropy;
+
+    /** The class labels of the last update */
+    private List<String> labels;
+
+    /** The model processor whose gestures the class indices map to */
+    private ModelProcessor modelProcessor;
+
+    /**
+     * Constructs a new PredictionDistribution that ranks the DEFAULT_TOP_K most likely classes.
+     */
+    public PredictionDistribution() {
+        this(DEFAULT_TOP_K);
+    }
+
+    /**
+     * Constructs a new PredictionDistribution. Create one per thread and pass it to
+     * every prediction, so no memory is allocated per frame.
+     *
+     * @param topK the number of most likely classes to rank
+     */
+    public PredictionDistribution(int topK) {
+        if (topK < 1) {
+            throw new IllegalArgumentException("topK must be at least 1, got " + topK);
+        }
+
+        capacity = topK;
+        topIndices = new int[topK];
+        topScores = new float[topK];
+        scores = new float[0];
+    }
+
+    /**
+     * Reads the next numClasses probabilities and, in a single pass, copies them,
+     * keeps the top-K classes and sums the entropy. The buffer's position is advanced.
+     *
+     * @param probabilities the model output, positioned at the first probability of the frame
+     * @param numClasses the number of classes
+     * @param modelProcessor the model processor holding the labels and gestures of the classes
+     */
+    void update(FloatBuffer probabilities, int numClasses, ModelProcessor modelProcessor) {
+        if (scores.length != numClasses) {
+            scores = new float[numClasses];
+        }
+
+        this.numClasses = numClasses;
+        this.modelProcessor = modelProcessor;
+        labels = modelProcessor.getLabels();
+        count = 0;
+
+        double sum = 0;
+
+        for (int i = 0; i < numClasses; i++) {
+            float p = probabilities.get();
+            scores[i] = p;
+
+            if (p > 0) {
+                sum -= p * Math.log(p);
+            }
+
+            // Insert into the ranking; ties keep the lower class index first, like the argmax
+            if (count < capacity || p > topScores[count - 1]) {
+                int rank = Math.min(count, capacity - 1);
+
+                while (rank > 0 && p > topScores[rank - 1]) {
+                    topScores[rank] = topScores[rank - 1];
+                    topIndices[rank] = topIndices[rank - 1];
+                    rank--;
+                }
+
+                topScores[rank] = p;
+                topIndices[rank] = i;
+                count = Math.min(count + 1, capacity);
+            }
+        }
+
+        entropy = (float) sum;
+    }
+
+    /**
+     * Returns the number of ranked classes, which is the smaller of top-K and the number of classes.
+     *
+     * @return the number of ranked classes
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the class index at the given rank.
+     *
+     * @param rank the rank, 0 for the most likely class
+     * @return the class index
+     */
+    public int getClassIndex(int rank) {
+        checkRank(rank);
+        return topIndices[rank];
+    }
+
+    /**
+     * Returns the probability at the given rank.
+     *
+     * @param rank the rank, 0 for the most likely class
+     * @return the probability
+     */
+    public float getScore(int rank) {
+        checkRank(rank);
+        return topScores[rank];
+    }
+
+    /**
+     * Returns the label at the given rank.
+     *
+     * @param rank the rank, 0 for the most likely class
+     * @return the label from labels.txt
+     */
+    public String getClassName(int rank) {
+        return labels.get(getClassIndex(rank));
+    }
+
+    /**
+     * Returns the gesture at the given rank.
+     *
+     * @param rank the rank, 0 for the most likely class
+     * @return the gesture
+     */
+    public Gesture getGesture(int rank) {
+        return modelProcessor.getGesture(getClassIndex(rank));
+    }
+
+    /**
+     * Returns the probability of every class, in the order of the labels.
+     *
+     * @return the reused array, overwritten by the next update
+     */
+    public float[] getScores() {
+        return scores;
+    }
+
+    /**
+     * Returns the number of classes in the last update.
+     *
+     * @return the number of classes
+     */
+    public int getNumClasses() {
+        return numClasses;
+    }
+
+    /**
+     * Returns how far the most likely class is ahead of the second. A small margin
+     * means the model cannot tell two gestures apart.
+     *
+     * @return the difference between the top two probabilities, or the top probability if there is one class
+     */
+    public float getMargin() {
+        checkRank(0);
+        return count > 1 ? topScores[0] - topScores[1] : topScores[0];
+    }
+
+    /**
+     * Returns the entropy of the distribution, 0 when the model is certain.
+     *
+     * @return the entropy in nats
+     */
+    public float getEntropy() {
+        return entropy;
+    }
+
+    /**
+     * Returns the entropy divided by its largest possible value, so it can be
+     * compared across models with different numbers of classes.
+     *
+     * @return the normalized entropy between 0 (certain) and 1 (uniform)
+     */
+    public float getNormalizedEntropy() {
+        return numClasses > 1 ? (float) (entropy / Math.log(numClasses)) : 0;
+    }
+
+    /**
+     * Returns a Prediction of the most likely class with a copy of the probabilities.
+     *
+     * @return the prediction
+     */
+    public Prediction toPrediction() {
+        return new Prediction(getClassName(0), topIndices[0], getGesture(0), topScores[0], scores.clone());
+    }
+
+    /**
+     * Checks that the rank is within the ranked classes.
+     *
+     * @param rank the rank to check
+     */
+    private void checkRank(int rank) {
+        if (rank < 0 || rank >= count) {
+            throw new IndexOutOfBoundsException("rank " + rank + " is outside the " + count + " ranked classes");
+        }
+    }
+
+    /**
+     * Returns a string representation of the distribution.
+     *
+     * @return a string containing the ranked classes, margin and entropy
+     */
+    public String toString() {
+        StringBuilder builder = new StringBuilder("PredictionDistribution: ");
+
+        for (int rank = 0; rank < count; rank++) {
+            builder.append(getClassName(rank)).append('=').append(topScores[rank]).append(", ");
+        }
+
+        return builder.append("margin=").append(getMargin()).append(", entropy=").append(entropy).toString();
+    }
+
+}
@@ -0,0 +1,289 @@
+package com.codedotorg.modelmanager;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class PredictionPublisher implements Flow.Publisher<Prediction>, AutoCloseable {
+
+    /** The number of predictions buffered per subscriber by default */
+    public static final int DEFAULT_BUFFER_CAPACITY = 16;
+
+    /** Delivers the predictions to the subscribers, so submit never waits for them */
+    private final Executor executor;
+
+    /** The current subscriptions */
+    private final List<PredictionSubscription> subscriptions;
+
+    /** The number of predictions dropped across all subscribers because they were not read in time */
+    private final AtomicLong droppedCount;
+
+    /** Whether close() has been called */
+    private volatile boolean closed;
+
+    /**
+     * Constructs a new PredictionPublisher that delivers on its own daemon threads.
+     * Each subscriber is drained by at most one thread at a time, so a slow
+     * subscriber only ever holds up itself.
+     */
+    public PredictionPublisher() {
+        this(Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "prediction-publisher");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * Constructs a new PredictionPublisher.
+     *
+     * @param executor delivers the predictions to the subscribers
+     */
+    public PredictionPublisher(Executor executor) {
+        this.executor = executor;
+        subscriptions = new CopyOnWriteArrayList<>();
+        droppedCount = new AtomicLong();
+    }
+
+    /**
+     * Subscribes with a buffer of DEFAULT_BUFFER_CAPACITY predictions that drops the oldest.
+     *
+     * @param subscriber the subscriber
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super Prediction> subscriber) {
+        subscribe(subscriber, BackpressurePolicy.DROP_OLDEST, DEFAULT_BUFFER_CAPACITY);
+    }
+
+    /**
+     * Subscribes with the given buffering. Predictions are buffered until the
+     * subscriber requests them; when the buffer is full the policy decides which
+     * predictions are dropped, so a slow subscriber never holds up the others.
+     *
+     * @param subscriber the subscriber
+     * @param policy which predictions to drop when the subscriber falls behind
+     * @param capacity the number of predictions buffered for DROP_OLDEST (LATEST_ONLY always keeps one)
+     */
+    public void subscribe(Flow.Subscriber<? super Prediction> subscriber, BackpressurePolicy policy, int capacity) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber");
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1, got " + capacity);
+        }
+
+        PredictionSubscription subscription = new PredictionSubscription(subscriber,
+            policy == BackpressurePolicy.LATEST_ONLY ? 1 : capacity);
+        subscriber.onSubscribe(subscription);
+
+        if (closed) {
+            subscription.complete();
+        }
+        else {
+            subscriptions.add(subscription);
+        }
+    }
+
+    /**
+     * Offers a prediction to every subscriber without waiting. It returns as soon
+     * as the prediction is buffered; delivery happens on the executor.
+     *
+     * @param prediction the prediction to publish
+     */
+    public void submit(Prediction prediction) {
+        if (closed) {
+            return;
+        }
+
+        for (PredictionSubscription subscription : subscriptions) {
+            subscription.offer(prediction);
+        }
+    }
+
+    /**
+     * Returns the number of current subscribers.
+     *
+     * @return the number of subscribers
+     */
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Returns the number of predictions dropped because a subscriber did not read them in time.
+     *
+     * @return the number of dropped predictions across all subscribers
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Stops accepting predictions. Subscribers receive the predictions already
+     * buffered and then onComplete.
+     */
+    @Override
+    public void close() {
+        closed = true;
+
+        for (PredictionSubscription subscription : subscriptions) {
+            subscription.complete();
+        }
+        subscriptions.clear();
+    }
+
+    /**
+     * One subscriber's buffer and demand. Deliveries are serialized by a
+     * work-in-progress counter, so onNext is never called concurrently.
+     */
+    private final class PredictionSubscription implements Flow.Subscription {
+
+        /** The subscriber the predictions are delivered to */
+        private final Flow.Subscriber<? super Prediction> subscriber;
+
+        /** The largest number of buffered predictions */
+        private final int capacity;
+
+        /** The predictions not yet delivered, oldest first (guarded by this) */
+        private final ArrayDeque<Prediction> buffer;
+
+        /** The number of predictions requested and not yet delivered */
+        private final AtomicLong demand;
+
+        /** The number of drain requests not yet handled; only the request that raises it from 0 drains */
+        private final AtomicInteger workInProgress;
+
+        /** Whether onComplete should follow the buffered predictions */
+        private volatile boolean completed;
+
+        /** Whether the subscription was cancelled or finished */
+        private volatile boolean done;
+
+        /** An invalid request to report with onError */
+        private volatile Throwable error;
+
+        /**
+         * Constructs a new PredictionSubscription.
+         *
+         * @param subscriber the subscriber the predictions are delivered to
+         * @param capacity the largest number of buffered predictions
+         */
+        private PredictionSubscription(Flow.Subscriber<? super Prediction> subscriber, int capacity) {
+            this.subscriber = subscriber;
+            this.capacity = capacity;
+            buffer = new ArrayDeque<>(capacity);
+            demand = new AtomicLong();
+            workInProgress = new AtomicInteger();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("request must be positive, got " + n);
+            }
+            else {
+                // Add to the demand without overflowing past Long.MAX_VALUE
+                demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            }
+
+            scheduleDrain();
+        }
+
+        @Override
+        public void cancel() {
+            done = true;
+            subscriptions.remove(this);
+        }
+
+        /**
+         * Buffers a prediction, dropping the oldest if the buffer is full.
+         *
+         * @param prediction the prediction to buffer
+         */
+        private void offer(Prediction prediction) {
+            synchronized (this) {
+                if (buffer.size() == capacity) {
+                    buffer.pollFirst();
+                    droppedCount.incrementAndGet();
+                }
+                buffer.addLast(prediction);
+            }
+
+            scheduleDrain();
+        }
+
+        /**
+         * Marks the subscription to complete once the buffered predictions are delivered.
+         */
+        private void complete() {
+            completed = true;
+            scheduleDrain();
+        }
+
+        /**
+         * Starts a drain on the executor unless one is already running.
+         */
+        private void scheduleDrain() {
+            if (workInProgress.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        /**
+         * Delivers buffered predictions while there is demand, then onComplete or
+         * onError if due. Loops until no drain request arrived while it was running.
+         */
+        private void drain() {
+            int missed = 1;
+
+            do {
+                while (!done) {
+                    if (error != null) {
+                        done = true;
+                        subscriptions.remove(this);
+                        subscriber.onError(error);
+                        break;
+                    }
+
+                    Prediction next = null;
+                    if (demand.get() > 0) {
+                        synchronized (this) {
+                            next = buffer.pollFirst();
+                        }
+                    }
+
+                    if (next == null) {
+                        boolean empty;
+                        synchronized (this) {
+                            empty = buffer.isEmpty();
+                        }
+
+                        if (completed && empty) {
+                            done = true;
+                            subscriber.onComplete();
+                        }
+                        break;
+                    }
+
+                    demand.decrementAndGet();
+
+                    try {
+                        subscriber.onNext(next);
+                    } catch (RuntimeException e) {
+                        // A failing subscriber is dropped so it cannot affect the others
+                        System.err.println("Cancelling a prediction subscriber that threw: " + e);
+                        cancel();
+                    }
+                }
+
+                missed = workInProgress.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+
+}
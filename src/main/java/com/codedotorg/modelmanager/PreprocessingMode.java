@@ -0,0 +1,11 @@
+package com.codedotorg.modelmanager;
+
+public enum PreprocessingMode {
+
+    /** Resizes, converts BGR to RGB and normalizes in OpenCV, writing straight into the input buffer */
+    NATIVE,
+
+    /** Resizes and converts in OpenCV, then normalizes with a Java loop (reference implementation) */
+    JAVA
+
+}
@@ -0,0 +1,11 @@
+package com.codedotorg.modelmanager;
+
+public enum PreviewMode {
+
+    /** Copies the BGR pixels straight into a reused JavaFX PixelBuffer (no encoding, no per-frame allocation) */
+    PIXEL_BUFFER,
+
+    /** Encodes each frame as a PNG and decodes it into a new JavaFX Image (original, slower fallback) */
+    PNG
+
+}
@@ -0,0 +1,265 @@
+package com.codedotorg.modelmanager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+public class PreviewRenderer {
+
+    /**
+     * The number of pixel buffers: one written by the capture thread, one shown
+     * by the JavaFX thread and one holding the newest frame waiting for a pulse
+     */
+    private static final int BUFFER_COUNT = 3;
+
+    /** Set in the exchange state when the buffer waiting for a pulse holds a frame not shown yet */
+    private static final int FRESH = 4;
+
+    /** Masks the buffer index out of the exchange state */
+    private static final int INDEX_MASK = 3;
+
+    /** How frames are converted into JavaFX images */
+    private volatile PreviewMode mode;
+
+    /** The direct buffers holding the BGRA pixels of each preview image */
+    private final ByteBuffer[] buffers;
+
+    /** The OpenCV Mats wrapping the direct buffers, written to by cvtColor */
+    private final Mat[] bgraFrames;
+
+    /** The JavaFX PixelBuffers sharing memory with the direct buffers, or null in PNG mode */
+    private final PixelBuffer<ByteBuffer>[] pixelBuffers;
+
+    /** The image of each buffer, backed by its PixelBuffer or decoded from a PNG */
+    private final Image[] images;
+
+    /** The System.nanoTime() at which the frame in each buffer was published */
+    private final long[] publishNanos;
+
+    /** The index of the buffer waiting for a pulse, plus FRESH if it holds a frame not shown yet */
+    private final AtomicInteger exchange;
+
+    /** The index of the buffer the capture thread writes into; only used by the capture thread */
+    private int back;
+
+    /** The index of the buffer shown in the ImageView; only used by the JavaFX thread */
+    private int front;
+
+    /** Shows the newest published frame on each JavaFX pulse, or null when stopped */
+    private AnimationTimer timer;
+
+    /**
+     * Constructs a new PreviewRenderer using the zero-copy PixelBuffer mode.
+     */
+    public PreviewRenderer() {
+        this(PreviewMode.PIXEL_BUFFER);
+    }
+
+    /**
+     * Constructs a new PreviewRenderer with the given mode.
+     *
+     * @param mode how frames should be converted into JavaFX images
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public PreviewRenderer(PreviewMode mode) {
+        this.mode = mode;
+        buffers = new ByteBuffer[BUFFER_COUNT];
+        bgraFrames = new Mat[BUFFER_COUNT];
+        pixelBuffers = new PixelBuffer[BUFFER_COUNT];
+        images = new Image[BUFFER_COUNT];
+        publishNanos = new long[BUFFER_COUNT];
+
+        // Each buffer has exactly one owner: capture writes 0, the pulse shows 1, 2 waits in between
+        back = 0;
+        front = 1;
+        exchange = new AtomicInteger(2);
+    }
+
+    /**
+     * Returns the mode used to convert frames into images.
+     *
+     * @return the current preview mode
+     */
+    public PreviewMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Sets the mode used to convert frames into images.
+     *
+     * @param mode the new preview mode
+     */
+    public void setMode(PreviewMode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Starts showing the published frames in the given ImageView, picking up only
+     * the newest frame on each JavaFX pulse. However slow the JavaFX thread is,
+     * nothing queues up behind it, so the preview is never more than one frame
+     * behind. Can be called from any thread.
+     *
+     * @param imageView the ImageView to display the frames in
+     */
+    public void start(ImageView imageView) {
+        Platform.runLater(() -> {
+            if (timer != null) {
+                timer.stop();
+            }
+
+            timer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    showLatest(imageView);
+                }
+            };
+            timer.start();
+        });
+    }
+
+    /**
+     * Stops showing frames. The ImageView keeps the last frame shown.
+     * Can be called from any thread.
+     */
+    public void stop() {
+        Platform.runLater(() -> {
+            if (timer != null) {
+                timer.stop();
+                timer = null;
+            }
+        });
+    }
+
+    /**
+     * Converts the given frame into the back buffer and makes it the newest frame
+     * for the next pulse. If the previous frame was never shown, it is skipped.
+     * In PIXEL_BUFFER mode the pixels are written into a reused direct buffer,
+     * so frames of the same size do not allocate anything. Must be called
+     * from a single thread (the capture thread).
+     *
+     * @param frame the BGR frame captured from the camera
+     */
+    public void publish(Mat frame) {
+        if (mode == PreviewMode.PNG) {
+            images[back] = matToImage(frame);
+            pixelBuffers[back] = null;
+        }
+        else {
+            ensureBuffer(back, frame.cols(), frame.rows());
+
+            // Convert BGR to BGRA directly into the memory shared with the PixelBuffer
+            Imgproc.cvtColor(frame, bgraFrames[back], Imgproc.COLOR_BGR2BGRA);
+        }
+        publishNanos[back] = System.nanoTime();
+
+        // Swap the written buffer with the one waiting for a pulse and write into that one next
+        int previous = exchange.getAndSet(back | FRESH);
+        back = previous & INDEX_MASK;
+
+        if ((previous & FRESH) != 0) {
+            PipelineMetrics.increment(PipelineCounter.PREVIEW_SKIPPED);
+        }
+    }
+
+    /**
+     * Shows the newest published frame, if there is one the ImageView has not shown yet.
+     * Called on every pulse by the AnimationTimer on the JavaFX Application Thread.
+     *
+     * @param imageView the ImageView to display the frame in
+     */
+    private void showLatest(ImageView imageView) {
+        if ((exchange.get() & FRESH) == 0) {
+            return;
+        }
+
+        // Swap the shown buffer with the newest frame; the capture thread writes into the old one later
+        front = exchange.getAndSet(front) & INDEX_MASK;
+        PipelineMetrics.recordSince(PipelineStage.FX_DELIVERY, publishNanos[front]);
+        PipelineMetrics.increment(PipelineCounter.PREVIEW_RENDERED);
+
+        // Tell JavaFX that the pixels behind a PixelBuffer image have changed
+        if (pixelBuffers[front] != null) {
+            pixelBuffers[front].updateBuffer(pixelBuffer -> null);
+        }
+
+        if (imageView.getImage() != images[front]) {
+            imageView.setImage(images[front]);
+        }
+    }
+
+    /**
+     * Converts a given OpenCV Mat object to a JavaFX Image object by encoding
+     * it as a PNG and decoding it again. Used by the PNG fallback mode.
+     *
+     * @param frame The OpenCV Mat object to be converted.
+     * @return The JavaFX Image object created from the image encoded in the buffer.
+     */
+    public Image matToImage(Mat frame) {
+        // Create a temporary buffer to store the encoded image data
+        MatOfByte buffer = NativeResources.track(new MatOfByte());
+
+        try {
+            // Encode the frame in the buffer, according to the PNG format
+            Imgcodecs.imencode(".png", frame, buffer);
+
+            // Build and return an Image created from the image encoded in the buffer
+            return new Image(new ByteArrayInputStream(buffer.toArray()));
+        } finally {
+            // Free the encoded bytes, which are copied into the Image
+            NativeResources.release(buffer);
+        }
+    }
+
+    /**
+     * Stops showing frames and releases the Mats wrapping the preview buffers. The
+     * image already shown stays valid, since its pixels live in a direct buffer;
+     * the next publish() allocates new Mats.
+     */
+    public void release() {
+        stop();
+
+        for (int i = 0; i < BUFFER_COUNT; i++) {
+            NativeResources.release(bgraFrames[i]);
+            bgraFrames[i] = null;
+        }
+    }
+
+    /**
+     * Makes sure the buffer at the given index matches the frame size,
+     * allocating a new direct buffer, Mat, PixelBuffer and image only
+     * when the size has changed.
+     *
+     * @param index the index of the buffer
+     * @param width the width of the frame
+     * @param height the height of the frame
+     */
+    private void ensureBuffer(int index, int width, int height) {
+        if (bgraFrames[index] != null && pixelBuffers[index] != null
+                && pixelBuffers[index].getWidth() == width && pixelBuffers[index].getHeight() == height) {
+            return;
+        }
+
+        NativeResources.release(bgraFrames[index]);
+
+        // Allocate a direct buffer and share it between OpenCV and JavaFX
+        buffers[index] = ByteBuffer.allocateDirect(width * height * 4);
+        bgraFrames[index] = NativeResources.newMat(height, width, CvType.CV_8UC4, buffers[index]);
+        pixelBuffers[index] = new PixelBuffer<>(width, height, buffers[index], PixelFormat.getByteBgraPreInstance());
+        images[index] = new WritableImage(pixelBuffers[index]);
+    }
+
+}
@@ -0,0 +1,199 @@
+package com.codedotorg.modelmanager;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+public class SessionConfigTuner {
+
+    /** The system property that turns on autotuning when no saved profile matches */
+    public static final String AUTOTUNE_PROPERTY = "guessinggame.autotune";
+
+    /** The system property that overrides where the chosen profile is saved */
+    public static final String PROFILE_PROPERTY = "guessinggame.sessionProfile";
+
+    /** The number of untimed runs before each candidate is measured */
+    private static final int WARMUP_RUNS = 5;
+
+    /** The number of timed runs per candidate */
+    private static final int MEASURED_RUNS = 30;
+
+    /** The path to the model being tuned */
+    private final String modelPath;
+
+    /** The file the chosen profile is saved to and loaded from */
+    private final Path profileFile;
+
+    /**
+     * Constructs a new SessionConfigTuner for the model at the given path.
+     *
+     * @param modelPath the path to the SavedModel directory
+     */
+    public SessionConfigTuner(String modelPath) {
+        this.modelPath = modelPath;
+
+        String override = System.getProperty(PROFILE_PROPERTY);
+        profileFile = override != null ? Paths.get(override)
+            : Paths.get(System.getProperty("user.home"), ".guessinggame", "session-profile.properties");
+    }
+
+    /**
+     * Returns the profile to load the model with: the saved profile if it was tuned
+     * for this model and machine, otherwise a freshly tuned and saved profile when
+     * autotuning is enabled with -Dguessinggame.autotune=true.
+     *
+     * @return the profile to use, or null to keep TensorFlow's defaults
+     */
+    public SessionProfile resolveProfile() {
+        SessionProfile saved = SessionProfile.load(profileFile, modelKey());
+
+        if (saved != null) {
+            System.out.println("Using saved " + saved);
+            return saved;
+        }
+
+        if (!Boolean.getBoolean(AUTOTUNE_PROPERTY)) {
+            return null;
+        }
+
+        SessionProfile best;
+        try {
+            best = tune();
+        } catch (IllegalStateException e) {
+            System.err.println(e.getMessage() + "; keeping TensorFlow's defaults");
+            return null;
+        }
+
+        try {
+            best.save(profileFile, modelKey());
+            System.out.println("Saved the session profile to " + profileFile);
+        } catch (IOException e) {
+            System.err.println("Failed to save the session profile to " + profileFile + ": " + e.getMessage());
+        }
+
+        return best;
+    }
+
+    /**
+     * Loads the model with each candidate configuration and keeps the one with the
+     * lowest p99 latency. Thread counts are searched first with the default optimizer
+     * settings, then XLA JIT and the graph optimizer level are toggled on the best
+     * thread counts, so only about ten sessions are loaded.
+     *
+     * @return the fastest profile
+     * @throws IllegalStateException if the model failed to run with every thread count
+     */
+    public SessionProfile tune() {
+        // InferenceBuffers preallocates OpenCV Mats
+        nu.pattern.OpenCV.loadLocally();
+
+        SessionProfile best = null;
+        long bestP99 = Long.MAX_VALUE;
+
+        for (SessionProfile candidate : threadCandidates()) {
+            long p99 = measure(candidate);
+            if (p99 < bestP99) {
+                best = candidate;
+                bestP99 = p99;
+            }
+        }
+
+        if (best == null) {
+            throw new IllegalStateException("Autotuning failed: the model did not run with any thread count");
+        }
+
+        for (SessionProfile candidate : List.of(best.withXlaJit(true), best.withGraphOptimizations(false))) {
+            long p99 = measure(candidate);
+            if (p99 < bestP99) {
+                best = candidate;
+                bestP99 = p99;
+            }
+        }
+
+        System.out.printf("Autotuned %s (p99 %.2fms)%n", best, bestP99 / 1e6);
+        return best;
+    }
+
+    /**
+     * Returns the thread count candidates for this machine.
+     *
+     * @return the candidates with the default optimizer settings
+     */
+    private List<SessionProfile> threadCandidates() {
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        Set<Integer> intraOpCounts = new LinkedHashSet<>(List.of(1, 2, Math.max(1, cores / 2), cores));
+        List<SessionProfile> candidates = new ArrayList<>();
+
+        for (int intraOp : intraOpCounts) {
+            for (int interOp : new int[] {1, 2}) {
+                candidates.add(new SessionProfile(intraOp, interOp, false, true));
+            }
+        }
+
+        return candidates;
+    }
+
+    /**
+     * Loads the model with the given profile and measures the p99 latency of
+     * single-frame runs after a few warm-up runs. The runs are recorded only in
+     * a local histogram, not in the pipeline metrics.
+     *
+     * @param profile the profile to measure
+     * @return the p99 latency in nanoseconds, or Long.MAX_VALUE if the model failed to run
+     */
+    private long measure(SessionProfile profile) {
+        ModelProcessor processor = new ModelProcessor();
+        processor.setSessionProfile(profile);
+        InferenceBuffers buffers = null;
+
+        try {
+            processor.loadModel();
+
+            TensorFlowBackend backend = new TensorFlowBackend(processor, false);
+            buffers = new InferenceBuffers();
+            LatencyHistogram latency = new LatencyHistogram();
+
+            // An all-zero frame is a mid-grey image after normalization
+            FloatBuffer input = buffers.getInput();
+
+            for (int i = 0; i < WARMUP_RUNS + MEASURED_RUNS; i++) {
+                input.clear();
+                input.limit(InferenceBuffers.FRAME_FLOATS);
+
+                long start = System.nanoTime();
+                backend.run(input, 1, buffers);
+
+                if (i >= WARMUP_RUNS) {
+                    latency.recordSince(start);
+                }
+            }
+
+            System.out.println("Measured " + profile + ": " + latency);
+            return latency.getPercentileNanos(99);
+        } catch (RuntimeException e) {
+            System.err.println("Skipping " + profile + ": " + e.getMessage());
+            return Long.MAX_VALUE;
+        } finally {
+            if (buffers != null) {
+                buffers.release();
+            }
+            processor.close();
+        }
+    }
+
+    /**
+     * Identifies the model and machine a profile is tuned for.
+     *
+     * @return the model path and the number of cores
+     */
+    private String modelKey() {
+        return modelPath + "@" + Runtime.getRuntime().availableProcessors() + "cores";
+    }
+
+}
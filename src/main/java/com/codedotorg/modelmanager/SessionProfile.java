@@ -0,0 +1,145 @@
+package com.codedotorg.modelmanager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import org.tensorflow.framework.ConfigProto;
+import org.tensorflow.framework.GraphOptions;
+import org.tensorflow.framework.OptimizerOptions;
+
+public final class SessionProfile {
+
+    /** The number of threads TensorFlow uses inside a single operation */
+    private final int intraOpThreads;
+
+    /** The number of threads TensorFlow uses to run independent operations */
+    private final int interOpThreads;
+
+    /** Whether XLA JIT compilation is enabled */
+    private final boolean xlaJit;
+
+    /** Whether the L1 graph optimizations (common subexpressions, constant folding) are enabled */
+    private final boolean graphOptimizations;
+
+    /**
+     * Constructs a new SessionProfile.
+     *
+     * @param intraOpThreads the number of threads used inside a single operation
+     * @param interOpThreads the number of threads used to run independent operations
+     * @param xlaJit whether XLA JIT compilation is enabled
+     * @param graphOptimizations whether the L1 graph optimizations are enabled
+     */
+    public SessionProfile(int intraOpThreads, int interOpThreads, boolean xlaJit, boolean graphOptimizations) {
+        this.intraOpThreads = intraOpThreads;
+        this.interOpThreads = interOpThreads;
+        this.xlaJit = xlaJit;
+        this.graphOptimizations = graphOptimizations;
+    }
+
+    /**
+     * Returns the serialized ConfigProto to load the SavedModel with.
+     *
+     * @return the ConfigProto bytes
+     */
+    public byte[] toConfigProto() {
+        OptimizerOptions optimizerOptions = OptimizerOptions.newBuilder()
+            .setOptLevel(graphOptimizations ? OptimizerOptions.Level.L1 : OptimizerOptions.Level.L0)
+            .setGlobalJitLevel(xlaJit ? OptimizerOptions.GlobalJitLevel.ON_1 : OptimizerOptions.GlobalJitLevel.OFF)
+            .build();
+
+        return ConfigProto.newBuilder()
+            .setIntraOpParallelismThreads(intraOpThreads)
+            .setInterOpParallelismThreads(interOpThreads)
+            .setGraphOptions(GraphOptions.newBuilder().setOptimizerOptions(optimizerOptions))
+            .build()
+            .toByteArray();
+    }
+
+    /**
+     * Returns a copy of this profile with XLA JIT compilation switched on or off.
+     *
+     * @param enabled whether XLA JIT compilation is enabled
+     * @return the new profile
+     */
+    public SessionProfile withXlaJit(boolean enabled) {
+        return new SessionProfile(intraOpThreads, interOpThreads, enabled, graphOptimizations);
+    }
+
+    /**
+     * Returns a copy of this profile with the graph optimizations switched on or off.
+     *
+     * @param enabled whether the L1 graph optimizations are enabled
+     * @return the new profile
+     */
+    public SessionProfile withGraphOptimizations(boolean enabled) {
+        return new SessionProfile(intraOpThreads, interOpThreads, xlaJit, enabled);
+    }
+
+    /**
+     * Saves the profile to a properties file, tagged with the model and machine it was tuned for.
+     *
+     * @param file the file to write
+     * @param modelKey identifies the model and machine the profile was tuned for
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file, String modelKey) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("model", modelKey);
+        properties.setProperty("intraOpThreads", String.valueOf(intraOpThreads));
+        properties.setProperty("interOpThreads", String.valueOf(interOpThreads));
+        properties.setProperty("xlaJit", String.valueOf(xlaJit));
+        properties.setProperty("graphOptimizations", String.valueOf(graphOptimizations));
+
+        Files.createDirectories(file.getParent());
+        try (OutputStream out = Files.newOutputStream(file)) {
+            properties.store(out, "TensorFlow session profile chosen by SessionConfigTuner");
+        }
+    }
+
+    /**
+     * Loads a profile saved with save() if it was tuned for the given model and machine.
+     *
+     * @param file the file to read
+     * @param modelKey identifies the current model and machine
+     * @return the profile, or null if the file is missing, unreadable or was tuned for something else
+     */
+    public static SessionProfile load(Path file, String modelKey) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        Properties properties = new Properties();
+
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+
+            if (!modelKey.equals(properties.getProperty("model"))) {
+                return null;
+            }
+
+            return new SessionProfile(
+                Integer.parseInt(properties.getProperty("intraOpThreads")),
+                Integer.parseInt(properties.getProperty("interOpThreads")),
+                Boolean.parseBoolean(properties.getProperty("xlaJit")),
+                Boolean.parseBoolean(properties.getProperty("graphOptimizations")));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring unreadable session profile " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns a string representation of the profile.
+     *
+     * @return a string containing the thread counts and optimizer settings
+     */
+    public String toString() {
+        return "SessionProfile: intraOpThreads=" + intraOpThreads + ", interOpThreads=" + interOpThreads
+            + ", xlaJit=" + xlaJit + ", graphOptimizations=" + graphOptimizations;
+    }
+
+}
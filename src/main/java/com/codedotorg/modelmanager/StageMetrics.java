@@ -0,0 +1,54 @@
+package com.codedotorg.modelmanager;
+
+import java.util.concurrent.TimeUnit;
+
+public class StageMetrics implements StageMetricsMBean {
+
+    /** The histogram of the stage's latencies */
+    private final LatencyHistogram histogram;
+
+    /**
+     * Constructs a new StageMetrics exposing the given histogram over JMX.
+     *
+     * @param histogram the histogram of the stage's latencies
+     */
+    public StageMetrics(LatencyHistogram histogram) {
+        this.histogram = histogram;
+    }
+
+    @Override
+    public long getCount() {
+        return histogram.getCount();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return histogram.getMeanNanos() / 1e3;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return histogram.getPercentile(50, TimeUnit.MICROSECONDS);
+    }
+
+    @Override
+    public double getP90Micros() {
+        return histogram.getPercentile(90, TimeUnit.MICROSECONDS);
+    }
+
+    @Override
+    public double getP99Micros() {
+        return histogram.getPercentile(99, TimeUnit.MICROSECONDS);
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return histogram.getMaxNanos() / 1e3;
+    }
+
+    @Override
+    public void reset() {
+        histogram.reset();
+    }
+
+}
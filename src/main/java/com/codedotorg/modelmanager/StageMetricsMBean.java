@@ -0,0 +1,52 @@
+package com.codedotorg.modelmanager;
+
+public interface StageMetricsMBean {
+
+    /**
+     * Returns the number of recorded latencies.
+     *
+     * @return the count
+     */
+    long getCount();
+
+    /**
+     * Returns the mean latency.
+     *
+     * @return the mean in microseconds
+     */
+    double getMeanMicros();
+
+    /**
+     * Returns the median latency.
+     *
+     * @return the p50 in microseconds
+     */
+    double getP50Micros();
+
+    /**
+     * Returns the 90th percentile latency.
+     *
+     * @return the p90 in microseconds
+     */
+    double getP90Micros();
+
+    /**
+     * Returns the 99th percentile latency.
+     *
+     * @return the p99 in microseconds
+     */
+    double getP99Micros();
+
+    /**
+     * Returns the largest latency.
+     *
+     * @return the max in microseconds
+     */
+    double getMaxMicros();
+
+    /**
+     * Clears the recorded latencies.
+     */
+    void reset();
+
+}
@@ -0,0 +1,87 @@
+package com.codedotorg.modelmanager;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.imgproc.Imgproc;
+
+public class SyntheticFrameSource implements FrameSource {
+
+    /** The width of the generated frames */
+    private final int width;
+
+    /** The height of the generated frames */
+    private final int height;
+
+    /** The number of frames to generate, or -1 for no limit */
+    private final long frameCount;
+
+    /** The seed of the background noise, so runs are reproducible */
+    private final long seed;
+
+    /** The noisy background every frame is drawn on */
+    private Mat background;
+
+    /** The index of the next frame */
+    private long next;
+
+    /**
+     * Constructs a new SyntheticFrameSource that generates reproducible frames
+     * of a square moving across a noisy background.
+     *
+     * @param width the width of the generated frames
+     * @param height the height of the generated frames
+     * @param frameCount the number of frames to generate, or -1 for no limit
+     * @param seed the seed of the background noise
+     */
+    public SyntheticFrameSource(int width, int height, long frameCount, long seed) {
+        this.width = width;
+        this.height = height;
+        this.frameCount = frameCount;
+        this.seed = seed;
+        next = 0;
+    }
+
+    @Override
+    public boolean open() {
+        // Generate the background once; every frame starts as a copy of it
+        background = NativeResources.track(new Mat(height, width, CvType.CV_8UC3));
+        Core.setRNGSeed((int) seed);
+        Core.randu(background, 0, 256);
+        return true;
+    }
+
+    @Override
+    public boolean read(Mat frame) {
+        if (frameCount >= 0 && next >= frameCount) {
+            return false;
+        }
+
+        background.copyTo(frame);
+
+        // Move a square across the frame so consecutive frames differ
+        int size = Math.min(width, height) / 4;
+        int x = (int) ((next * 8) % Math.max(1, width - size));
+        int y = (height - size) / 2;
+        Imgproc.rectangle(frame, new Point(x, y), new Point(x + size, y + size), new Scalar(40, 180, 220), -1);
+
+        next++;
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return "synthetic:" + width + "x" + height;
+    }
+
+    @Override
+    public void close() {
+        if (background != null) {
+            NativeResources.release(background);
+            background = null;
+        }
+    }
+
+}
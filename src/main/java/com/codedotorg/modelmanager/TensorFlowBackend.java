@@ -0,0 +1,92 @@
+package com.codedotorg.modelmanager;
+
+import java.nio.FloatBuffer;
+
+import org.tensorflow.Tensor;
+
+public class TensorFlowBackend implements InferenceBackend {
+
+    /** The ModelProcessor holding the loaded SavedModel, session and inference plan */
+    private final ModelProcessor modelProcessor;
+
+    /** Whether session runs are recorded in the pipeline metrics */
+    private final boolean recordMetrics;
+
+    /**
+     * Constructs a new TensorFlowBackend that runs the SavedModel loaded by the given ModelProcessor.
+     *
+     * @param modelProcessor the ModelProcessor to load and run the model with
+     */
+    public TensorFlowBackend(ModelProcessor modelProcessor) {
+        this(modelProcessor, true);
+    }
+
+    /**
+     * Constructs a new TensorFlowBackend that records its session runs in the
+     * pipeline metrics only if asked to, so measurement runs such as autotuning
+     * stay out of the production latency stats.
+     *
+     * @param modelProcessor the ModelProcessor to load and run the model with
+     * @param recordMetrics whether session runs are recorded in the pipeline metrics
+     */
+    TensorFlowBackend(ModelProcessor modelProcessor, boolean recordMetrics) {
+        this.modelProcessor = modelProcessor;
+        this.recordMetrics = recordMetrics;
+    }
+
+    /**
+     * Loads the SavedModel, using the saved or autotuned session profile when there is one.
+     */
+    @Override
+    public void load() {
+        SessionConfigTuner tuner = new SessionConfigTuner(modelProcessor.getModelPath());
+        modelProcessor.setSessionProfile(tuner.resolveProfile());
+        modelProcessor.loadModel();
+    }
+
+    @Override
+    public FloatBuffer run(FloatBuffer input, int batchSize, InferenceBuffers buffers) {
+        InferencePlan plan = modelProcessor.getInferencePlan();
+
+        Tensor<Float> tensorInput = modelProcessor.floatBufferToTensor(input, buffers);
+        Tensor<Float> result = null;
+
+        try {
+            long runStart = System.nanoTime();
+
+            result = NativeResources.track(plan.runner(modelProcessor.getSession(), tensorInput)
+                .run()
+                .get(0)
+                .expect(Float.class));
+            if (recordMetrics) {
+                PipelineMetrics.recordSince(PipelineStage.SESSION_RUN, runStart);
+            }
+
+            // Copy the output, shaped [batch_size, number_of_classes], through the direct buffer
+            FloatBuffer output = buffers.getOutput(result.numElements());
+            result.writeTo(output);
+            output.flip();
+            return output;
+        } finally {
+            // Free both tensors every frame, even if the run failed
+            NativeResources.close(result);
+            NativeResources.close(tensorInput);
+        }
+    }
+
+    @Override
+    public int getNumClasses() {
+        return modelProcessor.getInferencePlan().getOutputWidth(modelProcessor.getGraph());
+    }
+
+    @Override
+    public String getName() {
+        return "tensorflow";
+    }
+
+    @Override
+    public void close() {
+        modelProcessor.close();
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.codedotorg.modelmanager;
+
+import org.opencv.core.Mat;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.Videoio;
+
+public class VideoFileFrameSource implements FrameSource {
+
+    /** The path to the video file */
+    private final String path;
+
+    /** Whether to start again from the first frame at the end of the video */
+    private final boolean loop;
+
+    /** The capture reading the video file, created when the source is opened */
+    private VideoCapture video;
+
+    /**
+     * Constructs a new VideoFileFrameSource for the given video file.
+     *
+     * @param path the path to the video file
+     * @param loop whether to start again from the first frame at the end of the video
+     */
+    public VideoFileFrameSource(String path, boolean loop) {
+        this.path = path;
+        this.loop = loop;
+    }
+
+    @Override
+    public boolean open() {
+        video = new VideoCapture(path);
+        return video.isOpened();
+    }
+
+    @Override
+    public boolean read(Mat frame) {
+        if (video.read(frame)) {
+            return true;
+        }
+
+        // Rewind to the first frame and try once more if looping
+        return loop && video.set(Videoio.CAP_PROP_POS_FRAMES, 0) && video.read(frame);
+    }
+
+    @Override
+    public String getName() {
+        return "video:" + path;
+    }
+
+    @Override
+    public void close() {
+        if (video != null) {
+            video.release();
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.codedotorg;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.codedotorg.modelmanager.MockInferenceBackend;
+import com.codedotorg.modelmanager.ModelManager;
+
+public class CaptureCycleTest {
+
+    /** The number of times the capture is started and stopped */
+    private static final int CYCLES = 10;
+
+    /** How long each capture runs, long enough for frames to reach the model */
+    private static final long CYCLE_MILLIS = 100;
+
+    /** The model the captured frames are classified with */
+    private ModelManager model;
+
+    /**
+     * Loads the OpenCV natives once for all tests.
+     */
+    @BeforeAll
+    public static void loadOpenCV() {
+        nu.pattern.OpenCV.loadLocally();
+    }
+
+    /**
+     * Creates a model on the mock backend, so the test needs neither the real model nor a camera.
+     */
+    @BeforeEach
+    public void createModel() {
+        model = new ModelManager(new MockInferenceBackend(4, 0, 42), 1, 1);
+    }
+
+    /**
+     * Closes the model and releases its buffers.
+     */
+    @AfterEach
+    public void closeModel() {
+        model.close();
+    }
+
+    /**
+     * Restarting the capture releases every Mat and Tensor the previous capture allocated.
+     */
+    @Test
+    public void restartingTheCaptureDoesNotLeak() throws InterruptedException {
+        assertTrue(CaptureCycleCheck.run(model, "synthetic:320x240", CYCLES, CYCLE_MILLIS),
+            "the live Mats or Tensors did not return to their baseline");
+    }
+
+}
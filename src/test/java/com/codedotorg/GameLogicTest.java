@@ -0,0 +1,104 @@
+package com.codedotorg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.codedotorg.modelmanager.Gesture;
+
+public class GameLogicTest {
+
+    /** The most answers a binary search over 1..100 needs before the guess is the number */
+    private static final int MAX_ANSWERS = 7;
+
+    /** The first guess, the middle of the full range */
+    private static final int FIRST_GUESS = (GameLogic.LOWEST + GameLogic.HIGHEST) / 2;
+
+    /**
+     * A player who always answers truthfully gets every number from LOWEST to HIGHEST
+     * guessed within MAX_ANSWERS answers, and no guess ever leaves the range.
+     */
+    @Test
+    public void findsEveryNumberInRange() {
+        GameLogic logic = new GameLogic();
+
+        for (int secret = GameLogic.LOWEST; secret <= GameLogic.HIGHEST; secret++) {
+            logic.resetLogic();
+            int answers = 0;
+
+            while (logic.guessCorrect() != secret) {
+                int guess = logic.binarySearch(secret > logic.guessCorrect() ? Gesture.THUMBS_UP : Gesture.THUMBS_DOWN);
+                answers++;
+
+                assertTrue(guess >= GameLogic.LOWEST && guess <= GameLogic.HIGHEST, "guess " + guess + " for " + secret);
+                assertTrue(answers <= MAX_ANSWERS, "more than " + MAX_ANSWERS + " answers for " + secret);
+            }
+
+            assertEquals(secret, logic.binarySearch(Gesture.STOP));
+        }
+    }
+
+    /**
+     * The next guess excludes the current one: higher starts just above it and lower just below it,
+     * so both ends of the range can be reached.
+     */
+    @Test
+    public void boundsMoveOnePastTheGuess() {
+        GameLogic logic = new GameLogic();
+        assertEquals(FIRST_GUESS, logic.guessCorrect());
+
+        // 51..100, then 51..74, then 63..74, ...
+        assertEquals(75, logic.binarySearch(Gesture.THUMBS_UP));
+        assertEquals(62, logic.binarySearch(Gesture.THUMBS_DOWN));
+        assertEquals(68, logic.binarySearch(Gesture.THUMBS_UP));
+
+        logic.resetLogic();
+        int guess = FIRST_GUESS;
+        for (int i = 0; i < MAX_ANSWERS && guess != GameLogic.HIGHEST; i++) {
+            guess = logic.binarySearch(Gesture.THUMBS_UP);
+        }
+        assertEquals(GameLogic.HIGHEST, guess);
+
+        logic.resetLogic();
+        guess = FIRST_GUESS;
+        for (int i = 0; i < MAX_ANSWERS && guess != GameLogic.LOWEST; i++) {
+            guess = logic.binarySearch(Gesture.THUMBS_DOWN);
+        }
+        assertEquals(GameLogic.LOWEST, guess);
+    }
+
+    /**
+     * Answering higher at HIGHEST or lower at LOWEST leaves no number in the range,
+     * so the search starts over from the full range instead of guessing outside it.
+     */
+    @Test
+    public void restartsWhenTheRangeIsExhausted() {
+        GameLogic logic = new GameLogic();
+        for (int guess : new int[] {75, 88, 94, 97, 99, 100}) {
+            assertEquals(guess, logic.binarySearch(Gesture.THUMBS_UP));
+        }
+        assertEquals(FIRST_GUESS, logic.binarySearch(Gesture.THUMBS_UP));
+
+        logic.resetLogic();
+        for (int guess : new int[] {25, 12, 6, 3, 1}) {
+            assertEquals(guess, logic.binarySearch(Gesture.THUMBS_DOWN));
+        }
+        assertEquals(FIRST_GUESS, logic.binarySearch(Gesture.THUMBS_DOWN));
+    }
+
+    /**
+     * NEUTRAL and STOP keep the guess, and a gesture that is not an answer is rejected.
+     */
+    @Test
+    public void nonAnswersKeepTheGuess() {
+        GameLogic logic = new GameLogic();
+        logic.binarySearch(Gesture.THUMBS_UP);
+
+        assertEquals(75, logic.binarySearch(Gesture.NEUTRAL));
+        assertEquals(75, logic.binarySearch(Gesture.STOP));
+        assertEquals(-1, logic.binarySearch(Gesture.UNKNOWN));
+        assertEquals(75, logic.guessCorrect());
+    }
+
+}
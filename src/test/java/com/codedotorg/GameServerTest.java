@@ -0,0 +1,43 @@
+package com.codedotorg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.opencv.core.Mat;
+
+import com.codedotorg.modelmanager.MockInferenceBackend;
+import com.codedotorg.modelmanager.ModelManager;
+
+public class GameServerTest {
+
+    /**
+     * A frame rejected by a shut down scheduler leaves the session free, so it
+     * is counted as skipped once instead of blocking every later frame.
+     */
+    @Test
+    public void rejectedFrameFreesTheSession() throws InterruptedException {
+        nu.pattern.OpenCV.loadLocally();
+        ModelManager model = new ModelManager(new MockInferenceBackend(4, 0, 42), 1, 1);
+        GameServer server = new GameServer(model);
+        GameSession session = server.openSession();
+        Mat frame = new Mat();
+
+        try {
+            server.shutdown(1, TimeUnit.SECONDS);
+
+            assertThrows(RejectedExecutionException.class, () -> server.submitFrame(session, frame));
+            assertThrows(RejectedExecutionException.class, () -> server.submitFrame(session, frame));
+            assertEquals(2, session.getSkippedFrames());
+            assertTrue(session.tryBeginFrame(), "the session stayed busy after a rejected frame");
+        } finally {
+            frame.release();
+            model.close();
+        }
+    }
+
+}
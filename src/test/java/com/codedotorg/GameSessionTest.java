@@ -0,0 +1,68 @@
+package com.codedotorg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.codedotorg.modelmanager.Gesture;
+import com.codedotorg.modelmanager.Prediction;
+
+public class GameSessionTest {
+
+    /** The labels of the model, in the order of its probabilities */
+    private static final List<String> LABELS = List.of("0 thumbsdown", "1 thumbsup", "2 stop", "3 neutral");
+
+    /**
+     * Neutral and unknown gestures are turns but not rounds, so dropping the hand
+     * between answers does not inflate the rounds needed to win.
+     */
+    @Test
+    public void onlyAnswersCountAsRounds() {
+        GameSession session = new GameSession(1, LABELS, null);
+
+        play(session, Gesture.NEUTRAL);
+        play(session, Gesture.THUMBS_UP);
+        play(session, Gesture.NEUTRAL);
+        play(session, Gesture.UNKNOWN);
+        play(session, Gesture.THUMBS_DOWN);
+        play(session, Gesture.NEUTRAL);
+        play(session, Gesture.STOP);
+
+        assertEquals(7, session.getTurns());
+        assertEquals(1, session.getGamesWon());
+        assertEquals(1, session.getRoundsToWinCounts()[3]);
+        assertEquals(3.0, session.getAverageRoundsToWin(), 1e-9);
+    }
+
+    /**
+     * The rounds start again from zero after a win.
+     */
+    @Test
+    public void roundsRestartAfterWin() {
+        GameSession session = new GameSession(1, LABELS, null);
+
+        play(session, Gesture.STOP);
+        play(session, Gesture.NEUTRAL);
+        play(session, Gesture.THUMBS_DOWN);
+        play(session, Gesture.STOP);
+
+        assertEquals(2, session.getGamesWon());
+        assertEquals(1, session.getRoundsToWinCounts()[1]);
+        assertEquals(1, session.getRoundsToWinCounts()[2]);
+    }
+
+    /**
+     * Plays a committed prediction of the given gesture.
+     *
+     * @param session the session to play
+     * @param gesture the gesture the player held
+     */
+    private static void play(GameSession session, Gesture gesture) {
+        int index = gesture.ordinal() < LABELS.size() ? gesture.ordinal() : -1;
+        String label = index >= 0 ? LABELS.get(index) : "unknown";
+        session.playTurn(new Prediction(label, index, gesture, 1f, null));
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.codedotorg.modelmanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+
+public class PreprocessingTest {
+
+    /**
+     * The largest allowed difference between two preprocessed values. OpenCV computes
+     * x * (1 / 127.5) - 1 where the Java loop computes (x - 127.5) / 127.5, which can
+     * differ in the last bits of a float in [-1, 1].
+     */
+    private static final float TOLERANCE = 1e-5f;
+
+    /** The frame sizes tested, including ones that are not multiples of the model input size */
+    private static final int[][] FRAME_SIZES = {{640, 480}, {320, 240}, {224, 224}, {301, 207}};
+
+    /** The number of frames generated for each size */
+    private static final int FRAMES_PER_SIZE = 3;
+
+    /** The frames fed through every preprocessing path */
+    private List<Mat> frames;
+
+    /**
+     * Loads the OpenCV natives once for all tests.
+     */
+    @BeforeAll
+    public static void loadOpenCV() {
+        nu.pattern.OpenCV.loadLocally();
+    }
+
+    /**
+     * Generates noisy frames of each size, so every pixel value and channel
+     * order mistake shows up in the comparison.
+     */
+    @BeforeEach
+    public void createFrames() {
+        frames = new ArrayList<>();
+        Core.setRNGSeed(7);
+
+        for (int[] size : FRAME_SIZES) {
+            for (int i = 0; i < FRAMES_PER_SIZE; i++) {
+                Mat frame = new Mat(size[1], size[0], CvType.CV_8UC3);
+                Core.randu(frame, 0, 256);
+                frames.add(frame);
+            }
+        }
+    }
+
+    /**
+     * Releases the generated frames.
+     */
+    @AfterEach
+    public void releaseFrames() {
+        frames.forEach(Mat::release);
+    }
+
+    /**
+     * NATIVE and JAVA preprocessing both match the original float[] implementation,
+     * which keeps OpenCV's BGR order, with the first and third channel of every pixel swapped.
+     */
+    @Test
+    public void nativeAndJavaMatchLegacyPathInRgbOrder() {
+        ModelProcessor processor = new ModelProcessor();
+        InferenceBuffers buffers = new InferenceBuffers();
+
+        for (Mat frame : frames) {
+            float[] expected = processor.prepareFrameForModel(frame);
+
+            for (PreprocessingMode mode : PreprocessingMode.values()) {
+                processor.setPreprocessingMode(mode);
+                FloatBuffer actual = processor.prepareFrameForModel(frame, buffers);
+
+                assertSwappedAndClose(expected, actual, 0, mode + " on a " + frame.cols() + "x" + frame.rows() + " frame");
+            }
+        }
+    }
+
+    /**
+     * Each slot of a prepared batch matches the legacy path for its own frame in both modes.
+     */
+    @Test
+    public void batchSlotsMatchLegacyPathInRgbOrder() {
+        ModelProcessor processor = new ModelProcessor();
+        List<Mat> batch = frames.subList(0, 4);
+        InferenceBuffers buffers = new InferenceBuffers(batch.size());
+
+        for (PreprocessingMode mode : PreprocessingMode.values()) {
+            processor.setPreprocessingMode(mode);
+            FloatBuffer actual = processor.prepareBatchForModel(batch, buffers);
+            assertEquals(batch.size() * InferenceBuffers.FRAME_FLOATS, actual.remaining());
+
+            for (int i = 0; i < batch.size(); i++) {
+                float[] expected = processor.prepareFrameForModel(batch.get(i));
+                assertSwappedAndClose(expected, actual, i * InferenceBuffers.FRAME_FLOATS, mode + " batch slot " + i);
+            }
+        }
+    }
+
+    /**
+     * A pure blue BGR frame reaches the model as red -1, green -1 and blue +1 in every mode.
+     */
+    @Test
+    public void blueFrameArrivesInRgbOrder() {
+        ModelProcessor processor = new ModelProcessor();
+        InferenceBuffers buffers = new InferenceBuffers();
+        Mat blue = new Mat(480, 640, CvType.CV_8UC3, new Scalar(255, 0, 0));
+
+        try {
+            for (PreprocessingMode mode : PreprocessingMode.values()) {
+                processor.setPreprocessingMode(mode);
+                FloatBuffer actual = processor.prepareFrameForModel(blue, buffers);
+
+                assertEquals(-1f, actual.get(0), TOLERANCE, mode + " red");
+                assertEquals(-1f, actual.get(1), TOLERANCE, mode + " green");
+                assertEquals(1f, actual.get(2), TOLERANCE, mode + " blue");
+            }
+        } finally {
+            blue.release();
+        }
+    }
+
+    /**
+     * Asserts that a buffer holds the expected BGR values in RGB order, starting at the given offset.
+     *
+     * @param expected the values of the legacy path, in BGR order
+     * @param actual the buffer to check, in RGB order
+     * @param offset the index of the first value in the buffer
+     * @param description what is being compared, for the failure message
+     */
+    private static void assertSwappedAndClose(float[] expected, FloatBuffer actual, int offset, String description) {
+        assertTrue(actual.limit() >= offset + expected.length, description + ": buffer too short");
+
+        float maxDifference = 0;
+        for (int pixel = 0; pixel < expected.length; pixel += InferenceBuffers.CHANNELS) {
+            for (int channel = 0; channel < InferenceBuffers.CHANNELS; channel++) {
+                float swapped = expected[pixel + InferenceBuffers.CHANNELS - 1 - channel];
+                maxDifference = Math.max(maxDifference, Math.abs(swapped - actual.get(offset + pixel + channel)));
+            }
+        }
+
+        assertTrue(maxDifference <= TOLERANCE, description + ": values differ by up to " + maxDifference);
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.codedotorg.modelmanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SessionConfigTunerTest {
+
+    /**
+     * When the model runs with no candidate, tuning fails with a clear error
+     * instead of a NullPointerException, and nothing is recorded in the pipeline metrics.
+     *
+     * @param emptyDirectory a model directory with no SavedModel in it
+     */
+    @Test
+    public void failsClearlyWhenNoCandidateRuns(@TempDir Path emptyDirectory) {
+        SessionConfigTuner tuner = new SessionConfigTuner(emptyDirectory.toString());
+        long sessionRuns = PipelineMetrics.stage(PipelineStage.SESSION_RUN).getCount();
+
+        assertThrows(IllegalStateException.class, tuner::tune);
+        assertEquals(sessionRuns, PipelineMetrics.stage(PipelineStage.SESSION_RUN).getCount());
+    }
+
+}